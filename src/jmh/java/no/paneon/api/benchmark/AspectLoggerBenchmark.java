@@ -0,0 +1,74 @@
+package no.paneon.api.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import no.paneon.api.graph.CoreAPIGraph;
+import no.paneon.api.graph.Property;
+import no.paneon.api.logging.AspectLogger;
+import no.paneon.api.model.APIModel;
+
+/*
+ * Cost of the @LogMethod aspect on a hot accessor (Property.getName) and a lookup (APIModel.getDefinition),
+ * with the aspect logging inactive (default) and active with debug output filtered by log4j.
+ *
+ * Run with the jmh profile, once as is (not woven) and once with load time weaving:
+ *   mvn -Pjmh test-compile exec:exec -Djmh.benchmarks=AspectLoggerBenchmark
+ *   mvn -Pjmh test-compile exec:exec -Djmh.benchmarks=AspectLoggerBenchmark -Djmh.args="-prof gc -jvmArgsAppend '-javaagent:<aspectjweaver.jar>
+ *       --add-opens java.base/java.lang=ALL-UNNAMED -Dorg.aspectj.weaver.loadtime.configuration=benchmark/aop.xml'"
+ * With -Dorg.aspectj.weaver.loadtime.configuration=logging/aop-without-accessors.xml the accessor is not woven at all.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AspectLoggerBenchmark {
+
+	@Param({ "inactive", "active" })
+	public String logging;
+
+	Property property;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		APIModel.setSwaggerSource(CoreAPIGraphBenchmark.SPEC);
+		APIModel.loadAPI(CoreAPIGraphBenchmark.SPEC);
+
+		property = new CoreAPIGraph(APIModel.getCoreResources()).getNode("Catalog").getProperties().get(0);
+
+		if("active".equals(logging)) AspectLogger.setGlobalDebugLevel(org.apache.logging.log4j.Level.WARN);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		AspectLogger.setGlobalDebugLevel(AspectLogger.VERBOSE);
+		APIModel.clean();
+	}
+
+	@Benchmark
+	public String propertyGetName() {
+		return property.getName();
+	}
+
+	@Benchmark
+	public JSONObject getDefinition() {
+		return APIModel.getDefinition("Catalog");
+	}
+
+}
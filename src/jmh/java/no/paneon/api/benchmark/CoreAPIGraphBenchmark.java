@@ -0,0 +1,74 @@
+package no.paneon.api.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import no.paneon.api.graph.CoreAPIGraph;
+import no.paneon.api.graph.Node;
+import no.paneon.api.model.APIModel;
+
+/*
+ * CoreAPIGraph construction on TMF620, and the Node hash set operations the graph algorithms depend on.
+ *
+ * Run with the jmh profile, from the project directory:
+ *   mvn -Pjmh test-compile exec:exec -Djmh.benchmarks=CoreAPIGraphBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoreAPIGraphBenchmark {
+
+	static final String SPEC = "./src/test/resources/TMF620-ProductCatalog-v4.1.0.swagger.json";
+
+	List<String> resources;
+	List<Node> nodes;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		APIModel.setSwaggerSource(SPEC);
+		APIModel.loadAPI(SPEC);
+
+		resources = APIModel.getCoreResources();
+		nodes = new ArrayList<>(new CoreAPIGraph(resources).getCompleteGraph().vertexSet());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		APIModel.clean();
+	}
+
+	@Benchmark
+	public CoreAPIGraph construction() {
+		return new CoreAPIGraph(resources);
+	}
+
+	@Benchmark
+	public int nodeHashSet() {
+		Set<Node> set = new HashSet<>(nodes);
+		int found = 0;
+		for(Node node : nodes) {
+			if(set.contains(node)) found++;
+		}
+		return found;
+	}
+
+}
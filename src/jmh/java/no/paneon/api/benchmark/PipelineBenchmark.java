@@ -0,0 +1,180 @@
+package no.paneon.api.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.jgrapht.Graph;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import no.paneon.api.graph.CoreAPIGraph;
+import no.paneon.api.graph.Edge;
+import no.paneon.api.graph.Node;
+import no.paneon.api.graph.complexity.ComplexityAdjustedAPIGraph;
+import no.paneon.api.graph.complexity.GraphAlgorithms;
+import no.paneon.api.model.APIModel;
+import no.paneon.api.utils.StreamingLoader;
+import no.paneon.api.utils.Utils;
+
+/*
+ * The main steps on the bundled specifications and on generated ones:
+ * reading the document (streaming and by string conversion), loading the API, building the CoreAPIGraph, the sub graphs per resource,
+ * the cycles per resource and the YAML/JSON conversions.
+ *
+ * A number as spec is the schema count of a generated specification (see SyntheticSpec).
+ * Run with the jmh profile, from the project directory:
+ *   mvn -Pjmh test-compile exec:exec -Djmh.benchmarks=PipelineBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+	@Param({
+		"./src/test/resources/TMF620-ProductCatalog-v4.1.0.swagger.json",
+		"./src/test/resources/Quote_Management_5.0.0_oas.yaml",
+		"./src/test/resources/ordering-api.swagger.json",
+		"250",
+		"1000" })
+	public String spec;
+
+	String file;
+	boolean isYaml;
+
+	List<String> resources;
+	CoreAPIGraph core;
+	List<Graph<Node,Edge>> graphs;
+	List<Node> nodes;
+
+	JSONObject swagger;
+	String yaml;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		file = spec.matches("[0-9]+") ? generate(Integer.parseInt(spec)) : spec;
+		isYaml = file.endsWith(".yaml") || file.endsWith(".yml");
+
+		APIModel.clean();
+		APIModel.setSwaggerSource(file);
+		APIModel.loadAPI(file);
+
+		resources = APIModel.getCoreResources();
+		core = new CoreAPIGraph(resources);
+
+		graphs = new ArrayList<>();
+		nodes = new ArrayList<>();
+		for(String resource : resources) {
+			Node node = core.getNode(resource);
+			if(node==null) continue;
+			nodes.add(node);
+			graphs.add(CoreAPIGraph.getSubGraphWithInheritance(resources, core.getCompleteGraph(), node, node));
+		}
+
+		swagger = Utils.readJSONOrYaml(file);
+		yaml = Utils.convertJsonToYaml(swagger);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		APIModel.clean();
+	}
+
+	/*
+	 * A clean model for each loadAPI invocation, the clean() is not part of the measurement
+	 */
+	@State(Scope.Thread)
+	public static class CleanModel {
+
+		@Setup(Level.Invocation)
+		public void clean(PipelineBenchmark pipeline) {
+			APIModel.clean();
+			APIModel.setSwaggerSource(pipeline.file);
+		}
+
+	}
+
+	static String generate(int schemas) throws IOException {
+		File generated = File.createTempFile("synthetic-" + schemas + "-", ".json");
+		generated.deleteOnExit();
+		Files.write(generated.toPath(), new SyntheticSpec(schemas).generate().toString(2).getBytes(StandardCharsets.UTF_8));
+		return generated.getPath();
+	}
+
+	/*
+	 * The document read into a String, YAML converted to JSON text, then parsed by org.json - as before StreamingLoader
+	 */
+	@Benchmark
+	public JSONObject readByString() throws Exception {
+		String content = FileUtils.readFileToString(new File(file), StandardCharsets.UTF_8);
+		if(isYaml) content = Utils.convertYamlToJson(content);
+		return new JSONObject(content);
+	}
+
+	@Benchmark
+	public JSONObject readStreaming() throws Exception {
+		return StreamingLoader.read(file, isYaml);
+	}
+
+	@Benchmark
+	public APIModel loadAPI(CleanModel model) {
+		return APIModel.loadAPI(file);
+	}
+
+	@Benchmark
+	public CoreAPIGraph coreAPIGraph() {
+		return new CoreAPIGraph(resources);
+	}
+
+	@Benchmark
+	public ComplexityAdjustedAPIGraph generateSubGraphsForResource() {
+		ComplexityAdjustedAPIGraph graph = new ComplexityAdjustedAPIGraph(core, false);
+		for(String resource : resources) graph.generateSubGraphsForResource(resources, resource);
+		return graph;
+	}
+
+	@Benchmark
+	public int cyclicAllCycles() {
+		int res = 0;
+		for(int i=0; i<nodes.size(); i++) res += GraphAlgorithms.cyclicAllCycles(graphs.get(i), nodes.get(i)).size();
+		return res;
+	}
+
+	@Benchmark
+	public int getCycleIndex() {
+		int res = 0;
+		for(int i=0; i<nodes.size(); i++) res += GraphAlgorithms.getCycleIndex(graphs.get(i), nodes.get(i)).getCycles().size();
+		return res;
+	}
+
+	@Benchmark
+	public String convertJsonToYaml() throws Exception {
+		return Utils.convertJsonToYaml(swagger);
+	}
+
+	@Benchmark
+	public String convertYamlToJson() throws Exception {
+		return Utils.convertYamlToJson(yaml);
+	}
+
+}
@@ -1,8 +1,10 @@
 package no.paneon.api.graph;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -21,6 +23,7 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import no.paneon.api.graph.complexity.Complexity;
+import no.paneon.api.graph.complexity.CycleIndex;
 import no.paneon.api.graph.complexity.GraphAlgorithms;
 import no.paneon.api.model.APIModel;
 import no.paneon.api.utils.Config;
@@ -31,7 +34,8 @@ import no.paneon.api.logging.AspectLogger.LogLevel;
 
 import org.apache.logging.log4j.Logger;
 import org.jgrapht.Graph;
-import org.jgrapht.graph.AsSubgraph;
+import org.jgrapht.Graphs;
+import org.jgrapht.graph.builder.GraphTypeBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.jgrapht.alg.cycle.CycleDetector;
 
@@ -59,6 +63,9 @@ public class APIGraph extends CoreAPIGraph {
 	Node resourceNode;
 	
 	List<List<Node>> circles;
+	Graph<Node,Edge> circlesGraph;
+	
+	CycleIndex<Node> cycleIndex;
 	
 	boolean keepTechnicalEdges;
 	
@@ -125,7 +132,8 @@ public class APIGraph extends CoreAPIGraph {
 		
 		this.removeDuplicatedInheritedRelationships();
 		
-		this.circles = GraphAlgorithms.cyclicAllCycles(this.graph, this.resourceNode);
+		this.circlesGraph = copyOf(this.graph);
+		this.cycleIndex = GraphAlgorithms.getCycleIndex(this.graph, this.resourceNode);
 		
 		LOG.debug("init:: #2");
 		
@@ -743,26 +751,30 @@ public class APIGraph extends CoreAPIGraph {
 	    return isConnectedPath(from, to, new ArrayList<>());
 	}
 	
+	/*
+	 * True if there is a path (ignoring direction) from one node to the other that is not a direct edge 
+	 * and does not pass through the excluded nodes
+	 */
 	@LogMethod(level=LogLevel.DEBUG)
 	boolean isConnectedPath(Node from, Node to, List<Node> exclude) {
-	    return isConnectedPath(from, to, exclude, new ArrayList<>(), true);
-	}
-	
-	@LogMethod(level=LogLevel.DEBUG)
-	boolean isConnectedPath(Node from, Node to, List<Node> exclude, List<Node> seen, boolean first) {
-		if(exclude.contains(to) || to.equals(from) || seen.contains(from)) {
-			return false;
-		} else {
-		    seen.add(from);
-	
-		    Optional<Node> res = getNeighbours(from).stream()
-				    					.filter(n -> !exclude.contains(n))
-				    					.filter(n -> (n.equals(to) &&!first) || isConnectedPath(n,to,exclude,seen,false))
-				    					.findFirst();
-		       	
-		    return res.isPresent();
+		if(exclude.contains(to) || to.equals(from)) return false;
+		
+		Set<Node> seen = new HashSet<>(exclude);
+		seen.add(from);
+		
+		Deque<Node> queue = new ArrayDeque<>();
+		for(Node n : getNeighbours(from)) {
+			if(!n.equals(to) && seen.add(n)) queue.add(n);
+		}
+		
+		while(!queue.isEmpty()) {
+			for(Node n : getNeighbours(queue.poll())) {
+				if(n.equals(to)) return true;
+				if(seen.add(n)) queue.add(n);
+			}
 		}
 	    
+		return false;
 	}
 	
 	@LogMethod(level=LogLevel.DEBUG)
@@ -958,7 +970,7 @@ public class APIGraph extends CoreAPIGraph {
 		
 		LOG.debug("filterSimpleTypes: nonSimpleNodes=" + nonSimpleNodes);
 		
-		Graph<Node,Edge> subGraph = new AsSubgraph<>(this.graph, nonSimpleNodes);
+		Graph<Node,Edge> subGraph = SubGraphView.of(this.graph, nonSimpleNodes);
 		
 		LOG.debug("filterSimpleTypes: subGraph=" + subGraph.vertexSet());
 
@@ -1083,17 +1095,43 @@ public class APIGraph extends CoreAPIGraph {
 
 	@LogMethod(level=LogLevel.DEBUG)
 	public boolean notPartOfCircle(Node from) {
-		return circles.stream().flatMap(List::stream).noneMatch(from::equals);
+		return !cycleIndex.contains(from);
 	}
 
+	/*
+	 * The circles of the graph as it was at init, searched for on first use
+	 */
 	@LogMethod(level=LogLevel.DEBUG)
-	public List<List<Node>> getCircles() {
+	public synchronized List<List<Node>> getCircles() {
+		if(this.circles==null) {
+			this.circles = GraphAlgorithms.cyclicAllCycles(this.circlesGraph, this.resourceNode);
+			this.circlesGraph = null;
+		}
 		return this.circles;
 	}
 
+	/*
+	 * Copy not affected by later changes of the graph, in the same iteration order
+	 */
+	private static Graph<Node,Edge> copyOf(Graph<Node,Edge> graph) {
+		if(graph instanceof SubGraphView) return SubGraphView.of(graph);
+
+		Graph<Node,Edge> res = GraphTypeBuilder.forGraph(graph).buildGraph();
+		Graphs.addGraph(res, graph);
+		return res;
+	}
+
 	@LogMethod(level=LogLevel.DEBUG)
 	public boolean isNodeInCircles(Node node) {
-		return this.circles.stream().flatMap(List::stream).anyMatch(node::equals);
+		return this.cycleIndex.contains(node);
+	}
+
+	/*
+	 * Every elementary cycle through the node, within maxCycleLength and maxCycles, grouped by size
+	 */
+	@LogMethod(level=LogLevel.DEBUG)
+	public Map<Integer, List<List<Node>>> getCirclesForNode(Node node) {
+		return this.cycleIndex.getCyclesBySize(node);
 	}
 
 	@LogMethod(level=LogLevel.DEBUG)
@@ -1,5 +1,6 @@
 package no.paneon.api.graph;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -17,8 +18,6 @@ import static java.util.stream.Collectors.toSet;
 
 import org.apache.logging.log4j.Logger;
 import org.jgrapht.Graph;
-import org.jgrapht.graph.AsSubgraph;
-import org.jgrapht.graph.EdgeReversedGraph;
 import org.jgrapht.graph.builder.GraphTypeBuilder;
 import org.jgrapht.traverse.BreadthFirstIterator;
 import org.jgrapht.traverse.GraphIterator;
@@ -26,10 +25,13 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import no.paneon.api.model.APIModel;
+import no.paneon.api.model.APIModelContext;
 import no.paneon.api.utils.Config;
 import no.paneon.api.utils.Out;
+import no.paneon.api.utils.PatternRegistry;
 import no.paneon.api.utils.Utils;
 import no.paneon.api.logging.LogMethod;
+import no.paneon.api.logging.PhaseTracer;
 import no.paneon.api.logging.AspectLogger.LogLevel;
 
 import org.apache.logging.log4j.LogManager;
@@ -53,23 +55,46 @@ public class CoreAPIGraph {
     static final String REF = "$ref";
     static final String ITEMS = "items";
 
+    static final String NODES_OF_SUBGRAPH = "nodesOfSubGraph";
+
 	Graph<Node,Edge> completeGraph;
 	
+	GraphSnapshot snapshot;
+	
 	List<String> allResources = new LinkedList<>();
 	
+	APIModelContext model;
+	
 	public CoreAPIGraph() {
 		this(new LinkedList<>());
 	}
 	
 	public CoreAPIGraph(List<String> allResources) {
+		this(APIModel.getCurrentContext(), allResources);
+	}
+	
+	public CoreAPIGraph(APIModelContext model, List<String> allResources) {
+		this.model = model;
 		this.allResources = allResources;
 		this.graphNodes = new HashMap<>();
 		this.enumNodes = new HashMap<>();
 		this.enumMapping = new HashMap<>();
 		
+		model.run(() -> {
+			try(PhaseTracer.Span span = PhaseTracer.start("CoreAPIGraph")) {
+				build();
+				span.setGraph(completeGraph);
+			}
+		});
+	}
+	
+	private void build() {
 		LOG.debug("CoreAPIGraph:: #1");
 
-		this.completeGraph = generateGraph();	
+		try(PhaseTracer.Span span = PhaseTracer.start("generateGraph")) {
+			this.completeGraph = new VersionedGraph(generateGraph());
+			span.setGraph(completeGraph);
+		}
 		
 		LOG.debug("CoreAPIGraph:: edges={}", completeGraph.edgeSet());
 
@@ -107,7 +132,7 @@ public class CoreAPIGraph {
 		
 		updateNodePropertiesFromFVO();
 
-		updateDiscriminators();
+		PhaseTracer.run("updateDiscriminators", this::updateDiscriminators);
 		
 		markRequiredDiscriminators();
 		
@@ -119,6 +144,8 @@ public class CoreAPIGraph {
 		
 		LOG.debug("CoreAPIGraph:: final edges={}", completeGraph.edgeSet().stream().map(Edge::toString).collect(Collectors.joining("\n")) );
 
+		this.snapshot = GraphSnapshot.of(completeGraph);
+		
 	}
 	
 	@LogMethod(level=LogLevel.DEBUG)
@@ -290,11 +317,13 @@ public class CoreAPIGraph {
 	}
 
 	public CoreAPIGraph(CoreAPIGraph core) {
+		this.model = core.model;
 		this.graphNodes = core.graphNodes;
 		this.enumNodes = core.enumNodes;
 		this.enumMapping = core.enumMapping;
 		
 		this.completeGraph = core.completeGraph;
+		this.snapshot = core.snapshot;
 		
 	}
 		
@@ -367,7 +396,7 @@ public class CoreAPIGraph {
 		
 		LOG.debug("getOrAddNode::isEnumType={}", APIModel.isEnumType(definition));
 
-		node = APIModel.isEnumType(definition) ? new EnumNode(coreDefinition) : new Node(coreDefinition);
+		node = APIModel.isEnumType(definition) ? new EnumNode(model, coreDefinition) : new Node(model, coreDefinition);
 		
 		LOG.debug("getOrAddNode::node={}", node);
 
@@ -732,18 +761,15 @@ public class CoreAPIGraph {
 	}
 
 	private static boolean isPatternInheritance(String type) {
-		final List<String> patterns = Config.get(INHERITANCE_PATTERN);
+		boolean res = PatternRegistry.getMatcher(INHERITANCE_PATTERN).test(type);
 		
-		boolean res = patterns.stream().anyMatch(pattern -> type.matches(pattern));
-		
-		if(res) LOG.debug("isPatternInheritance: type={} patterns={}", type, patterns);
+		if(res) LOG.debug("isPatternInheritance: type={}", type);
 
 		return res;
 	}
 	
 	public static boolean isPatternInheritance(Node type) {
-		final List<String> patterns = Config.get(INHERITANCE_PATTERN);
-		return patterns.stream().anyMatch(pattern -> type.getName().matches(pattern));
+		return PatternRegistry.getMatcher(INHERITANCE_PATTERN).test(type.getName());
 	}
 	
 	@LogMethod(level=LogLevel.DEBUG)
@@ -875,6 +901,11 @@ public class CoreAPIGraph {
 	
 	@LogMethod(level=LogLevel.DEBUG)
 	public static Set<Node> getOutboundNeighbours(Graph<Node,Edge> graph, Node node) {
+		GraphSnapshot snapshot = GraphSnapshot.lookup(graph);
+		if(snapshot!=null) {
+			return snapshot.contains(node) ? snapshot.toNodes(snapshot.getOutbound(snapshot.indexOf(node))) : new HashSet<>();
+		}
+		
 		Set<Node> res = new HashSet<>();
 		if(graph.vertexSet().contains(node)) {
 			res.addAll(  graph.outgoingEdgesOf(node).stream().map(graph::getEdgeTarget).collect(toSet()) );
@@ -884,6 +915,11 @@ public class CoreAPIGraph {
 
 	@LogMethod(level=LogLevel.DEBUG)
 	public static Set<Node> getInboundNeighbours(Graph<Node,Edge> graph, Node node) {
+		GraphSnapshot snapshot = GraphSnapshot.lookup(graph);
+		if(snapshot!=null) {
+			return snapshot.contains(node) ? snapshot.toNodes(snapshot.getInbound(snapshot.indexOf(node))) : new HashSet<>();
+		}
+		
 		Set<Node> res = new HashSet<>();
 		if(graph.vertexSet().contains(node)) {
 			res.addAll( graph.incomingEdgesOf(node).stream().map(graph::getEdgeSource).collect(toSet()) );
@@ -934,6 +970,21 @@ public class CoreAPIGraph {
 			return res;
 		}	
 		
+		GraphSnapshot snapshot = GraphSnapshot.lookup(graph);
+		if(snapshot!=null && snapshot.contains(node)) {
+			return snapshot.toNodes(snapshot.getReachability().getNodesOfSubGraph(snapshot.indexOf(node)));
+		}
+
+		if(graph instanceof SubGraphView) {
+			return ((SubGraphView) graph).getMemoized(NODES_OF_SUBGRAPH, node, n -> computeNodesOfSubGraph(graph, n));
+		}
+
+		return computeNodesOfSubGraph(graph, node);
+	}
+
+	private static Set<Node> computeNodesOfSubGraph(Graph<Node,Edge> graph, Node node) {
+		Set<Node> res = new HashSet<>();
+
 		GraphIterator<Node, Edge> it = new BreadthFirstIterator<>(graph, node);
 
 		while(it.hasNext() ) {
@@ -979,7 +1030,7 @@ public class CoreAPIGraph {
 
 		Set<Node> nodes = getNodesOfSubGraph(origGraph, node);
 		
-		Graph<Node,Edge> graph = new AsSubgraph<Node, Edge>(origGraph);
+		Graph<Node,Edge> graph = SubGraphView.of(origGraph);
 
 		LOG.debug("getSubGraphWithInheritance: #111 node={} graph isDiscriminator=\n{}",  node, graph.edgeSet().stream().filter(Edge::isDiscriminator).map(Object::toString).collect(Collectors.joining("\n")));
 
@@ -1135,7 +1186,7 @@ public class CoreAPIGraph {
 
 		LOG.debug("getSubGraphWithInheritance:: node={} nodes={}", node, nodes);
 
-		Graph<Node,Edge> subGraph = new AsSubgraph<>(graph, nodes);
+		Graph<Node,Edge> subGraph = SubGraphView.of(graph, nodes);
 		
 		LOG.debug("getSubGraphWithInheritance:: node={} subGraph edges={}", node, subGraph.edgeSet().stream().map(Object::toString).collect(Collectors.joining("\n")));
 
@@ -1202,13 +1253,17 @@ public class CoreAPIGraph {
 	public static Set<Node> getReachable(Graph<Node, Edge> graph, String node) {
 		Optional<Node> optNode = CoreAPIGraph.getNodeByName(graph, node);
 		if(optNode.isPresent()) {
-			return getReachable(graph, optNode.get(), new HashSet<>() );
+			return getReachable(graph, optNode.get());
 		} else {
 			return new HashSet<>();
 		}
 	}
 	
 	public static Set<Node> getReachable(Graph<Node, Edge> graph, Node node) {
+		GraphSnapshot snapshot = GraphSnapshot.lookup(graph);
+		if(snapshot!=null && snapshot.contains(node)) {
+			return snapshot.toNodes(snapshot.getReachability().getReachableWithMapping(snapshot.indexOf(node)));
+		}
 		return getReachable(graph, node, new HashSet<>() );
 	}
 
@@ -1391,7 +1446,7 @@ public class CoreAPIGraph {
 			
 		for(Node neighbour : neighbours) {
 			Set<Node> sub = getNodesOfSubGraph(graph, neighbour);
-			Graph<Node,Edge> subGraph = new AsSubgraph<>(graph, sub);
+			Graph<Node,Edge> subGraph = SubGraphView.of(graph, sub);
 			res.put(node,  subGraph);
 		}
 		
@@ -1446,6 +1501,17 @@ public class CoreAPIGraph {
 
 	@LogMethod(level=LogLevel.DEBUG)
 	public static Set<Node> getSubGraphByParent(Graph<Node,Edge> graph, Node parent, Node node) {
+		GraphSnapshot snapshot = GraphSnapshot.lookup(graph);
+		if(snapshot!=null && snapshot.contains(node)) {
+			int blocked = snapshot.indexOf(parent);
+			BitSet reachable = blocked<0 || parent.equals(node) 
+									? snapshot.getReachability().getSuccessors(snapshot.indexOf(node))
+									: snapshot.getSuccessors(snapshot.indexOf(node), blocked);
+			Set<Node> res = snapshot.toNodes(reachable);
+			res.remove(parent);
+			return res;
+		}
+
 		Set<Node> seen = new HashSet<>();
 		seen.add(parent);
 		Set<Node>  res = getSubGraphHelper(graph, node, seen);
@@ -1554,6 +1620,11 @@ public class CoreAPIGraph {
 
 	@LogMethod(level=LogLevel.DEBUG)
 	public static Set<Node> getReverseSubGraph(Graph<Node,Edge> graph, Node node) {
+		GraphSnapshot snapshot = GraphSnapshot.lookup(graph);
+		if(snapshot!=null && snapshot.contains(node)) {
+			return snapshot.toNodes(snapshot.getReachability().getPredecessors(snapshot.indexOf(node)));
+		}
+		
 		Set<Node> seen = new HashSet<>();
 		seen.add(node);
 		return getReverseSubGraphHelper(graph, node, seen);	
@@ -1583,10 +1654,17 @@ public class CoreAPIGraph {
 		return this.completeGraph;
 	}
 
+	public GraphSnapshot getSnapshot() {
+		return this.snapshot;
+	}
+
+	public APIModelContext getModel() {
+		return this.model;
+	}
+
 	@LogMethod(level=LogLevel.DEBUG)
 	public static Graph<Node, Edge> copyGraph(Graph<Node, Edge> graph) {
-		Graph<Node, Edge> revGraph = new EdgeReversedGraph<>(graph);		
-		return new EdgeReversedGraph<>(revGraph);
+		return SubGraphView.of(graph);
 	}
 
 	@LogMethod(level=LogLevel.DEBUG)
@@ -98,12 +98,9 @@ public class Edge {
 		
 		if(res) return res;
 		
-		List<String> flattenPattern = Config.getFlattenInheritanceRegexp();
-		
-//		LOG.debug("flattenedInheritance: name={} pattern={}", this.related.getName(), flattenPattern);
-		res = flattenPattern.stream().anyMatch(pattern -> this.related.getName().matches(pattern));
+		res = Config.getFlattenInheritanceMatcher().test(this.related.getName());
 
-//		LOG.debug("flattenedInheritance: name={} pattern={} res={}", this.related.getName(), flattenPattern, res);
+//		LOG.debug("flattenedInheritance: name={} res={}", this.related.getName(), res);
 
 		return res;
 	}
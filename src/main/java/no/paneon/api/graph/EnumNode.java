@@ -9,6 +9,7 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import no.paneon.api.model.APIModel;
+import no.paneon.api.model.APIModelContext;
 import no.paneon.api.utils.Config;
 import no.paneon.api.utils.Out;
 import no.paneon.api.logging.LogMethod;
@@ -29,12 +30,16 @@ public class EnumNode extends Node {
 	List<String> values;
 
 	public EnumNode(String type) {
-		super(type);
+		this(APIModel.getCurrentContext(), type);
+	}
+	
+	public EnumNode(APIModelContext model, String type) {
+		super(model, type);
 		
 		this.type=type;
 		this.values = new LinkedList<>();
 		
-		processEnum();
+		model.run(this::processEnum);
 	}
 	
 	@LogMethod(level=LogLevel.TRACE)
@@ -0,0 +1,296 @@
+package no.paneon.api.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jgrapht.Graph;
+
+/*
+ * Frozen int-indexed copy of a Node/Edge graph, used for the traversals on the complete graph.
+ *
+ * Each node has an id 0..size()-1 and each edge an id 0..getEdgeCount()-1, both in the iteration
+ * order of the graph. Outgoing and incoming edges are stored as compressed sparse rows, with the
+ * edge id and the edge type (AllOf, OneOf, Discriminator, enum) as flags per edge.
+ * A snapshot of the complete graph of a CoreAPIGraph (a VersionedGraph) is kept with that graph,
+ * and lookup() only returns it as long as no node or edge has been added or removed since.
+ * Reachability queries are answered by the ReachabilityIndex of the snapshot, created on first use.
+ */
+public class GraphSnapshot {
+
+	static final Logger LOG = LogManager.getLogger(GraphSnapshot.class);
+
+	public static final int ALL_OF = 1;
+	public static final int ONE_OF = 2;
+	public static final int DISCRIMINATOR = 4;
+	public static final int ENUM = 8;
+
+	private static final int[] NO_NODES = new int[0];
+
+	private final Graph<Node,Edge> graph;
+	private final long version;
+
+	private final Node[] nodes;
+	private final Map<Node,Integer> index;
+	private final Map<String,int[]> byName;
+
+	private final Edge[] edges;
+	private final Map<Edge,Integer> edgeIndex;
+
+	final int[] edgeSources;
+	final int[] edgeTargets;
+
+	final int[] outOffsets;
+	final int[] outTargets;
+	final int[] outEdges;
+	final byte[] outFlags;
+
+	final int[] inOffsets;
+	final int[] inSources;
+	final int[] inEdges;
+	final byte[] inFlags;
+
+	private volatile ReachabilityIndex reachability;
+
+	private GraphSnapshot(Graph<Node,Edge> graph) {
+		this.graph = graph;
+		this.version = versionOf(graph);
+
+		this.nodes = graph.vertexSet().toArray(new Node[0]);
+		this.index = new HashMap<>();
+		Map<String,List<Integer>> names = new HashMap<>();
+		for(int v=0; v<nodes.length; v++) {
+			index.put(nodes[v], v);
+			names.computeIfAbsent(nodes[v].getName(), n -> new ArrayList<>()).add(v);
+		}
+		this.byName = new HashMap<>();
+		names.forEach((name,ids) -> byName.put(name, ids.stream().mapToInt(Integer::intValue).toArray()));
+
+		this.edges = graph.edgeSet().toArray(new Edge[0]);
+		this.edgeIndex = new HashMap<>();
+		for(int e=0; e<edges.length; e++) edgeIndex.put(edges[e], e);
+
+		int n = nodes.length;
+		this.outOffsets = new int[n+1];
+		this.inOffsets = new int[n+1];
+
+		int edgeTotal = 0;
+		for(int v=0; v<n; v++) {
+			outOffsets[v+1] = outOffsets[v] + graph.outDegreeOf(nodes[v]);
+			inOffsets[v+1] = inOffsets[v] + graph.inDegreeOf(nodes[v]);
+			edgeTotal += graph.outDegreeOf(nodes[v]);
+		}
+
+		this.outTargets = new int[edgeTotal];
+		this.outEdges = new int[edgeTotal];
+		this.outFlags = new byte[edgeTotal];
+		this.inSources = new int[inOffsets[n]];
+		this.inEdges = new int[inOffsets[n]];
+		this.inFlags = new byte[inOffsets[n]];
+		this.edgeSources = new int[edgeTotal];
+		this.edgeTargets = new int[edgeTotal];
+
+		for(int v=0; v<n; v++) {
+			int pos = outOffsets[v];
+			for(Edge edge : graph.outgoingEdgesOf(nodes[v])) {
+				outTargets[pos] = index.get(graph.getEdgeTarget(edge));
+				outEdges[pos] = edgeIndex.get(edge);
+				outFlags[pos] = flagsOf(edge);
+				edgeSources[outEdges[pos]] = v;
+				edgeTargets[outEdges[pos]] = outTargets[pos];
+				pos++;
+			}
+			pos = inOffsets[v];
+			for(Edge edge : graph.incomingEdgesOf(nodes[v])) {
+				inSources[pos] = index.get(graph.getEdgeSource(edge));
+				inEdges[pos] = edgeIndex.get(edge);
+				inFlags[pos] = flagsOf(edge);
+				pos++;
+			}
+		}
+
+		LOG.debug("GraphSnapshot: nodes={} edges={}", n, edgeTotal);
+	}
+
+	/*
+	 * Build a snapshot of the graph, kept for lookup() if the graph is a VersionedGraph
+	 */
+	public static GraphSnapshot of(Graph<Node,Edge> graph) {
+		GraphSnapshot res = new GraphSnapshot(graph);
+		if(graph instanceof VersionedGraph) ((VersionedGraph) graph).setSnapshot(res);
+		return res;
+	}
+
+	/*
+	 * The snapshot kept with this graph, null if none or if the graph has been changed since
+	 */
+	public static GraphSnapshot lookup(Graph<?,?> graph) {
+		if(!(graph instanceof VersionedGraph)) return null;
+		GraphSnapshot snapshot = ((VersionedGraph) graph).getSnapshot();
+		return snapshot!=null && snapshot.isCurrent() ? snapshot : null;
+	}
+
+	/*
+	 * False once a node or edge of a VersionedGraph has been added or removed after the snapshot was built,
+	 * other graphs are not tracked
+	 */
+	public boolean isCurrent() {
+		return versionOf(graph)==version;
+	}
+
+	private static long versionOf(Graph<?,?> graph) {
+		return graph instanceof VersionedGraph ? ((VersionedGraph) graph).getVersion() : 0;
+	}
+
+	private static byte flagsOf(Edge edge) {
+		int res = 0;
+		if(edge instanceof AllOf) res |= ALL_OF;
+		if(edge instanceof OneOf) res |= ONE_OF;
+		if(edge instanceof Discriminator) res |= DISCRIMINATOR;
+		if(edge instanceof EdgeEnum) res |= ENUM;
+		return (byte) res;
+	}
+
+	public int size() {
+		return nodes.length;
+	}
+
+	public int getEdgeCount() {
+		return outTargets.length;
+	}
+
+	public boolean contains(Node node) {
+		return node!=null && index.containsKey(node);
+	}
+
+	/*
+	 * The id of the node, -1 if not part of the graph
+	 */
+	public int indexOf(Node node) {
+		Integer res = node!=null ? index.get(node) : null;
+		return res!=null ? res : -1;
+	}
+
+	public Node getNode(int id) {
+		return nodes[id];
+	}
+
+	public List<Node> getNodes() {
+		return Collections.unmodifiableList(Arrays.asList(nodes));
+	}
+
+	/*
+	 * The id of the edge, -1 if not part of the graph
+	 */
+	public int indexOf(Edge edge) {
+		Integer res = edge!=null ? edgeIndex.get(edge) : null;
+		return res!=null ? res : -1;
+	}
+
+	public Edge getEdge(int id) {
+		return edges[id];
+	}
+
+	Graph<Node,Edge> getGraph() {
+		return graph;
+	}
+
+	/*
+	 * The ids of the nodes with the given name
+	 */
+	public int[] getNodesByName(String name) {
+		return byName.getOrDefault(name, NO_NODES);
+	}
+
+	public ReachabilityIndex getReachability() {
+		ReachabilityIndex res = reachability;
+		if(res==null) {
+			synchronized(this) {
+				res = reachability;
+				if(res==null) {
+					res = new ReachabilityIndex(this);
+					reachability = res;
+				}
+			}
+		}
+		return res;
+	}
+
+	/*
+	 * True if some edge from -> to has one of the edge type flags
+	 */
+	public boolean hasEdge(int from, int to, int flags) {
+		for(int p=outOffsets[from]; p<outOffsets[from+1]; p++) {
+			if(outTargets[p]==to && (outFlags[p] & flags)!=0) return true;
+		}
+		return false;
+	}
+
+	public BitSet getOutbound(int id) {
+		BitSet res = new BitSet(nodes.length);
+		for(int p=outOffsets[id]; p<outOffsets[id+1]; p++) res.set(outTargets[p]);
+		return res;
+	}
+
+	public BitSet getInbound(int id) {
+		BitSet res = new BitSet(nodes.length);
+		for(int p=inOffsets[id]; p<inOffsets[id+1]; p++) res.set(inSources[p]);
+		return res;
+	}
+
+	/*
+	 * Nodes at the end of a path of at least one edge from the start node, not passing through the blocked node.
+	 * The start and blocked nodes are only included if they are reached by such a path.
+	 */
+	public BitSet getSuccessors(int start, int blocked) {
+		return traverse(start, blocked, outOffsets, outTargets);
+	}
+
+	/*
+	 * As getSuccessors, following the edges in reverse direction
+	 */
+	public BitSet getPredecessors(int start, int blocked) {
+		return traverse(start, blocked, inOffsets, inSources);
+	}
+
+	private BitSet traverse(int start, int blocked, int[] offsets, int[] targets) {
+		BitSet res = new BitSet(nodes.length);
+		BitSet expanded = new BitSet(nodes.length);
+		int[] queue = new int[nodes.length];
+		int head = 0;
+		int tail = 0;
+
+		expanded.set(start);
+		if(blocked>=0) expanded.set(blocked);
+		queue[tail++] = start;
+
+		while(head<tail) {
+			int v = queue[head++];
+			for(int p=offsets[v]; p<offsets[v+1]; p++) {
+				int w = targets[p];
+				res.set(w);
+				if(!expanded.get(w)) {
+					expanded.set(w);
+					queue[tail++] = w;
+				}
+			}
+		}
+
+		return res;
+	}
+
+	public Set<Node> toNodes(BitSet ids) {
+		Set<Node> res = new HashSet<>();
+		for(int v=ids.nextSetBit(0); v>=0; v=ids.nextSetBit(v+1)) res.add(nodes[v]);
+		return res;
+	}
+
+}
@@ -10,6 +10,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -25,7 +27,9 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import no.paneon.api.model.APIModel;
+import no.paneon.api.model.APIModelContext;
 import no.paneon.api.utils.Config;
+import no.paneon.api.utils.ConfigSnapshot;
 import no.paneon.api.utils.Out;
 import no.paneon.api.utils.Utils;
 import no.paneon.api.logging.LogMethod;
@@ -35,7 +39,10 @@ public class Node implements Comparable<Object>  {
 
     static final Logger LOG = LogManager.getLogger(Node.class);
 
-    static Map<String,Node> nodeMap = new HashMap<>();
+    static final String NODES = Node.class.getName();
+    static final String NODE_IDS = NodeIds.class.getName();
+    
+    APIModelContext model;
     
 	List<Property> properties;
 		
@@ -47,6 +54,9 @@ public class Node implements Comparable<Object>  {
 
 	String resource = "ANON";
 	
+	private int id = -1;
+	private volatile NodeIds ids;
+	
 	List<String> enums; 
 	
 	Optional<Set<String>> inheritance;
@@ -82,6 +92,7 @@ public class Node implements Comparable<Object>  {
 	
 	protected Node() {
 		
+		this.model = APIModel.getCurrentContext();
 		this.properties = new LinkedList<>();
 		this.placements = new EnumMap<>(Place.class);
 		
@@ -102,12 +113,21 @@ public class Node implements Comparable<Object>  {
 	}
 	
 	public Node(String resource) {
+		this(APIModel.getCurrentContext(), resource);
+	}
+	
+	public Node(APIModelContext model, String resource) {
 		this();
+		this.model=model;
 		this.resource=resource;		
 		
+		model.run(this::init);
+	}
+	
+	private void init() {
 		LOG.debug("Node resource={}" , resource );
 
-		nodeMap.put(this.resource, this);
+		getNodeMap(model).put(this.resource, this);
 		
 		addDescription();
 		
@@ -147,7 +167,7 @@ public class Node implements Comparable<Object>  {
 	}
 
 	public void updateDiscriminatorMapping() {
-		Set<String> inherited = getAllDiscriminators();
+		Set<String> inherited = model.call(this::getAllDiscriminators);
 		if(this.localDiscriminatorMapping.isEmpty() && inherited.contains(this.resource)) {
 			this.localDiscriminatorMapping.add(this.resource);
 		}
@@ -159,7 +179,7 @@ public class Node implements Comparable<Object>  {
 	}
 
 	public void setLocalDiscriminators() {
-		JSONObject mapping = APIModel.getMappingForResource(this.resource);
+		JSONObject mapping = model.call(() -> APIModel.getMappingForResource(this.resource));
 		if(mapping!=null) this.localDiscriminatorMapping.addAll( mapping.keySet() );
 	}
 	
@@ -565,7 +585,7 @@ public class Node implements Comparable<Object>  {
 				}
 				
 				if(!seen) {
-					Property propDetails = new Property(propName, coreType, cardinality, isRequired, property.optString(DESCRIPTION), visibility );
+					Property propDetails = new Property(model, propName, coreType, cardinality, isRequired, property.optString(DESCRIPTION), visibility );
 					
 					LOG.debug("addPropertyDetails: node={} property={} " , this, propDetails );
 
@@ -614,8 +634,10 @@ public class Node implements Comparable<Object>  {
 	public static Set<String> getAllDiscriminatorsHelper(Node resource) {
 		Set<String> res = new HashSet<>();	
 		
+		Map<String,Node> nodeMap = getNodeMap(resource.model);
+		
 		res.addAll( resource.getInheritance().stream()
-								.map(Node::getNodeByName)
+								.map(nodeMap::get)
 								.filter(Objects::nonNull)
 								.map(Node::getAllDiscriminators)
 								.flatMap(Set::stream)
@@ -677,8 +699,12 @@ public class Node implements Comparable<Object>  {
 				
 	}
 
-	@LogMethod(level=LogLevel.DEBUG)
 	public void addAllOfObject(JSONObject definition, Property.Visibility visibility) {
+		model.run(() -> addAllOfDefinition(definition, visibility));
+	}
+	
+	@LogMethod(level=LogLevel.DEBUG)
+	private void addAllOfDefinition(JSONObject definition, Property.Visibility visibility) {
 		
 		LOG.debug("addAllOfs: node={} definition={}", this, definition);
 
@@ -723,8 +749,12 @@ public class Node implements Comparable<Object>  {
 	}
 	
 	
-	@LogMethod(level=LogLevel.DEBUG)
 	public void addOneOfObject(JSONObject definition, Property.Visibility visibility) {
+		model.run(() -> addOneOfDefinition(definition, visibility));
+	}
+	
+	@LogMethod(level=LogLevel.DEBUG)
+	private void addOneOfDefinition(JSONObject definition, Property.Visibility visibility) {
 		
 		LOG.debug("addOneOfObject: node={} definition={}", this, definition);
 
@@ -831,22 +861,64 @@ public class Node implements Comparable<Object>  {
 		return this.resource;
 	}
 	
+	/*
+	 * Nodes are equal when they have the same name. Nodes of the same model compare the ids of their names,
+	 * interned per model on the first equals, other nodes compare the names.
+	 * The hash code remains the hash of the name, keeping the iteration order of hashed collections.
+	 */
 	public int hashCode() {
-		int res = this.resource.hashCode();
-		LOG.trace("Node::hashCode: node=" + this.toString() + " res=" + res);
-
-		return res;
+		return this.resource.hashCode();
 	}
 	
 	public boolean equals(Object obj) {
-		boolean res=false;
+		if(this==obj) return true;
+		
+		boolean res = false;
 		if(obj instanceof Node) {
-			res = ((Node) obj).getName().contentEquals(this.getName());
-		} 
-		LOG.trace("Node::equals: node=" + this.toString() + " obj=" + obj + " res=" + res);
+			Node other = (Node) obj;
+			res = this.getIds()!=null && this.getIds()==other.getIds()
+					? this.getId()==other.getId()
+					: this.resource.equals(other.resource);
+		}
+		
+		if(LOG.isTraceEnabled()) LOG.trace("Node::equals: node={} obj={} res={}", this, obj, res);
+		
 		return res;
 	}
 	
+	/*
+	 * Id of the node name within its model, assigned on first use and the same for all nodes with the same name.
+	 * -1 for a node without a model.
+	 */
+	public int getId() {
+		getIds();
+		return this.id;
+	}
+
+	private NodeIds getIds() {
+		NodeIds res = this.ids;
+		if(res==null && model!=null) {
+			res = model.getAttached(NODE_IDS, NodeIds::new);
+			this.id = res.of(this.resource);
+			this.ids = res;
+		}
+		return res;
+	}
+
+	/*
+	 * Ids of the node names of a model, dropped with the model state on clean()
+	 */
+	private static class NodeIds {
+
+		private final Map<String,Integer> ids = new ConcurrentHashMap<>();
+		private final AtomicInteger next = new AtomicInteger();
+
+		int of(String name) {
+			return ids.computeIfAbsent(name, n -> next.getAndIncrement());
+		}
+
+	}
+	
 	public String getName() {
 		return this.resource;
 	}
@@ -862,22 +934,20 @@ public class Node implements Comparable<Object>  {
 
 	@LogMethod(level=LogLevel.DEBUG)
 	public boolean isEnumType(String type) {
-		return APIModel.isEnumType(type);
+		return model.call(() -> APIModel.isEnumType(type));
 	}
 
 
 	@LogMethod(level=LogLevel.DEBUG)
 	public boolean isSimpleType(String type) {
 		
-		List<String> simpleEndings = Config.getSimpleEndings();
-				
-		boolean simpleEnding = simpleEndings.stream().anyMatch(type::endsWith);
+		ConfigSnapshot config = Config.snapshot();
 		
-		return  simpleEnding 
-				|| APIModel.isSpecialSimpleType(type) 
-				|| APIModel.isSimpleType(type) 
-				|| Config.getSimpleTypes().contains(type) 
-				|| APIModel.isEnumType(type);
+		return  config.hasSimpleEnding(type) 
+				|| config.isSimpleType(type) 
+				|| model.call(() -> APIModel.isSpecialSimpleType(type) 
+									|| APIModel.isSimpleType(type) 
+									|| APIModel.isEnumType(type));
 		
 	}
 	
@@ -951,7 +1021,7 @@ public class Node implements Comparable<Object>  {
 //		Set<String> all = this.discriminatorMapping;
 //		
 //		return all;
-		return this.getAllDiscriminators();
+		return model.call(this::getAllDiscriminators);
 	}
 
 	public Set<String> getInheritedDiscriminatorMapping() {		
@@ -1003,8 +1073,12 @@ public class Node implements Comparable<Object>  {
 			this.externalDiscriminatorMapping.get().addAll( inheritedDiscriminators );
 	}
 	
-	static private Node getNodeByName(String node) {
-		return nodeMap.get(node);
+	private static Map<String,Node> getNodeMap(APIModelContext model) {
+		return model.getAttached(NODES, ConcurrentHashMap::new);
+	}
+	
+	public APIModelContext getModel() {
+		return model;
 	}
 
 	public void clearInheritedDiscriminatorMapping() {
@@ -1027,6 +1101,8 @@ public class Node implements Comparable<Object>  {
 	public void updatePropertiesFromFVO() {
 		String fvoName = this.getName() + "_FVO";
 		
+		Map<String,Node> nodeMap = getNodeMap(model);
+		
 		Set<String> fvoNames = nodeMap.keySet().stream().filter(s -> s.startsWith(fvoName)).collect(toSet());
 		
 		if(fvoNames.isEmpty()) return;
@@ -1076,7 +1152,7 @@ public class Node implements Comparable<Object>  {
 	}
 	
 	private boolean isAPIResource() {
-		return APIModel.getResources().contains(this.getName());
+		return model.call(APIModel::getResources).contains(this.getName());
 	}
 
 	public Property getPropertyByName(String name) {
@@ -1094,7 +1170,7 @@ public class Node implements Comparable<Object>  {
 		Set<String> inheritance = this.getInheritance();
 		
 		Set<String> indirectInheritance = inheritance.stream()
-												.map(Node::getNodeByName)
+												.map(getNodeMap(model)::get)
 												.filter(Objects::nonNull)
 												.map(Node::getDeepInheritance)
 												.flatMap(Set::stream).collect(toSet());
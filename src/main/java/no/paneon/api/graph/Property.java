@@ -8,7 +8,9 @@ import org.apache.logging.log4j.Logger;
 import org.json.JSONObject;
 
 import no.paneon.api.model.APIModel;
+import no.paneon.api.model.APIModelContext;
 import no.paneon.api.utils.Config;
+import no.paneon.api.utils.ConfigSnapshot;
 import no.paneon.api.utils.Out;
 import no.paneon.api.logging.LogMethod;
 import no.paneon.api.logging.AspectLogger.LogLevel;
@@ -39,7 +41,14 @@ public class Property {
 	public static Visibility VISIBLE_INHERITED = Visibility.VISIBLE_INHERITED;
 	public static Visibility HIDDEN_INHERITED = Visibility.HIDDEN_INHERITED;
 
+	APIModelContext model;
+
 	public Property(String name, String type, String cardinality, boolean required, String description, Visibility visibility) {
+		this(APIModel.getCurrentContext(), name, type, cardinality, required, description, visibility);
+	}
+
+	public Property(APIModelContext model, String name, String type, String cardinality, boolean required, String description, Visibility visibility) {
+		this.model = model;
 		this.name = name;
 		this.type = type;
 		this.cardinality = cardinality;
@@ -47,7 +56,7 @@ public class Property {
 		this.description = description;
 		this.visibility = visibility;
 		
-		this.isEnum = APIModel.isEnumType(type);
+		this.isEnum = model.call(() -> APIModel.isEnumType(type));
 				
 	}
 
@@ -84,18 +93,20 @@ public class Property {
 	@LogMethod(level=LogLevel.DEBUG)
 	public boolean isSimpleType() {
 				
-		List<String> simpleEndings = Config.getSimpleEndings();
+		ConfigSnapshot config = Config.snapshot();
 				
-		boolean simpleEnding = simpleEndings.stream().anyMatch(ending -> type.endsWith(ending));
-		
-		return  simpleEnding 
-				|| APIModel.isSpecialSimpleType(type) 
-				|| APIModel.isSimpleType(type) 
-				|| Config.getSimpleTypes().contains(type) 
-				|| APIModel.isEnumType(type);
+		return  config.hasSimpleEnding(type) 
+				|| config.isSimpleType(type)
+				|| model.call(() -> APIModel.isSpecialSimpleType(type) 
+										|| APIModel.isSimpleType(type) 
+										|| APIModel.isEnumType(type));
 		
 	}
 	
+	public APIModelContext getModel() {
+		return model;
+	}
+
 	public String toString() {
 		return name + " : " + type + " required:" + required + " visibility:" + this.visibility;
 	}
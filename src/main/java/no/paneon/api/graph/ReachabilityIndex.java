@@ -0,0 +1,225 @@
+package no.paneon.api.graph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import no.paneon.api.graph.complexity.Adjacency;
+import no.paneon.api.graph.complexity.StronglyConnectedComponents;
+
+/*
+ * Precomputed reachability of a GraphSnapshot.
+ *
+ * The graph is condensed into strongly connected components, and the successors
+ * (and predecessors) are computed once per component as a bitset, in topological order.
+ * Reachability of a node is then a lookup of the bitset of its component.
+ *
+ * Two variants are materialized as well: the subgraph including the nodes inheriting
+ * from the node (see CoreAPIGraph.getNodesOfSubGraph), on first use per node, and
+ * reachability when also following the discriminator mappings of the nodes
+ * (see CoreAPIGraph.getReachable), on first use.
+ *
+ * All methods return new bitsets that can be changed by the caller.
+ */
+public class ReachabilityIndex {
+
+	static final Logger LOG = LogManager.getLogger(ReachabilityIndex.class);
+
+	private final GraphSnapshot snapshot;
+
+	private final Closure forward;
+
+	private final AtomicReferenceArray<BitSet> withInheritance;
+
+	private volatile Closure withMapping;
+
+	ReachabilityIndex(GraphSnapshot snapshot) {
+		this.snapshot = snapshot;
+		this.forward = new Closure(snapshot.outOffsets, snapshot.outTargets);
+		this.withInheritance = new AtomicReferenceArray<>(snapshot.size());
+
+		LOG.debug("ReachabilityIndex: nodes={} components={}", snapshot.size(), forward.scc.getComponentCount());
+	}
+
+	/*
+	 * Nodes at the end of a path of at least one edge from the node
+	 */
+	public BitSet getSuccessors(int id) {
+		return (BitSet) forward.successors[forward.scc.getComponent(id)].clone();
+	}
+
+	/*
+	 * Nodes with a path of at least one edge to the node
+	 */
+	public BitSet getPredecessors(int id) {
+		return (BitSet) forward.predecessors[forward.scc.getComponent(id)].clone();
+	}
+
+	/*
+	 * The node and all nodes reachable from it
+	 */
+	public BitSet getClosure(int id) {
+		BitSet res = getSuccessors(id);
+		res.set(id);
+		return res;
+	}
+
+	public boolean isReachable(int from, int to) {
+		return from==to || forward.successors[forward.scc.getComponent(from)].get(to);
+	}
+
+	/*
+	 * The closure of the node, together with the closures of the nodes inheriting from it (AllOf)
+	 * that are not already part of the closure, repeated for these nodes.
+	 */
+	public BitSet getNodesOfSubGraph(int id) {
+		BitSet res = withInheritance.get(id);
+		if(res==null) {
+			res = computeNodesOfSubGraph(id);
+			withInheritance.compareAndSet(id, null, res);
+		}
+		return (BitSet) res.clone();
+	}
+
+	private BitSet computeNodesOfSubGraph(int start) {
+		BitSet res = new BitSet(snapshot.size());
+		BitSet roots = new BitSet(snapshot.size());
+		int[] queue = new int[snapshot.size()];
+		int head = 0;
+		int tail = 0;
+
+		roots.set(start);
+		queue[tail++] = start;
+
+		while(head<tail) {
+			int root = queue[head++];
+
+			BitSet reach = forward.successors[forward.scc.getComponent(root)];
+			res.or(reach);
+			res.set(root);
+
+			for(int p=snapshot.inOffsets[root]; p<snapshot.inOffsets[root+1]; p++) {
+				int subclass = snapshot.inSources[p];
+				if((snapshot.inFlags[p] & GraphSnapshot.ALL_OF)!=0 && subclass!=root && !reach.get(subclass) && !roots.get(subclass)) {
+					roots.set(subclass);
+					queue[tail++] = subclass;
+				}
+			}
+		}
+
+		return res;
+	}
+
+	/*
+	 * The node and all nodes reachable from it, following both the edges and the discriminator mappings
+	 */
+	public BitSet getReachableWithMapping(int id) {
+		Closure closure = getMappingClosure();
+		BitSet res = (BitSet) closure.successors[closure.scc.getComponent(id)].clone();
+		res.set(id);
+		return res;
+	}
+
+	private Closure getMappingClosure() {
+		Closure res = withMapping;
+		if(res==null) {
+			synchronized(this) {
+				res = withMapping;
+				if(res==null) {
+					res = createMappingClosure();
+					withMapping = res;
+				}
+			}
+		}
+		return res;
+	}
+
+	private Closure createMappingClosure() {
+		int n = snapshot.size();
+		int[][] mapped = new int[n][];
+		int[] offsets = new int[n+1];
+
+		for(int v=0; v<n; v++) {
+			mapped[v] = snapshot.getNode(v).getAllDiscriminatorMapping().stream()
+							.map(snapshot::getNodesByName)
+							.flatMapToInt(Arrays::stream)
+							.toArray();
+			offsets[v+1] = offsets[v] + snapshot.outOffsets[v+1] - snapshot.outOffsets[v] + mapped[v].length;
+		}
+
+		int[] targets = new int[offsets[n]];
+		for(int v=0; v<n; v++) {
+			int pos = offsets[v];
+			for(int p=snapshot.outOffsets[v]; p<snapshot.outOffsets[v+1]; p++) targets[pos++] = snapshot.outTargets[p];
+			for(int w : mapped[v]) targets[pos++] = w;
+		}
+
+		return new Closure(offsets, targets);
+	}
+
+	/*
+	 * Successors and predecessors per strongly connected component
+	 */
+	private class Closure {
+
+		final StronglyConnectedComponents scc;
+		final BitSet[] successors;
+		final BitSet[] predecessors;
+
+		Closure(int[] offsets, int[] targets) {
+			Adjacency<Node,Void> adjacency = Adjacency.of(snapshot.getNodes(), offsets, targets);
+
+			this.scc = StronglyConnectedComponents.of(adjacency);
+
+			int count = scc.getComponentCount();
+			this.successors = new BitSet[count];
+			this.predecessors = new BitSet[count];
+
+			boolean[] cyclic = new boolean[count];
+			for(int c=0; c<count; c++) {
+				BitSet res = new BitSet(snapshot.size());
+				for(int i=0; i<scc.getSize(c); i++) {
+					int v = scc.getMember(c, i);
+					for(int p=adjacency.first(v); p<adjacency.end(v); p++) {
+						int w = adjacency.target(p);
+						int d = scc.getComponent(w);
+						if(d==c) {
+							cyclic[c] = true;
+						} else {
+							res.or(successors[d]);
+							res.set(w);
+						}
+					}
+				}
+				if(cyclic[c] || scc.getSize(c)>1) {
+					cyclic[c] = true;
+					addMembers(res, c);
+				}
+				successors[c] = res;
+			}
+
+			for(int c=0; c<count; c++) predecessors[c] = new BitSet(snapshot.size());
+			for(int c=count-1; c>=0; c--) {
+				if(cyclic[c]) addMembers(predecessors[c], c);
+				BitSet closure = (BitSet) predecessors[c].clone();
+				addMembers(closure, c);
+				for(int i=0; i<scc.getSize(c); i++) {
+					int v = scc.getMember(c, i);
+					for(int p=adjacency.first(v); p<adjacency.end(v); p++) {
+						int d = scc.getComponent(adjacency.target(p));
+						if(d!=c) predecessors[d].or(closure);
+					}
+				}
+			}
+		}
+
+		private void addMembers(BitSet bits, int c) {
+			for(int i=0; i<scc.getSize(c); i++) bits.set(scc.getMember(c, i));
+		}
+
+	}
+
+}
@@ -0,0 +1,571 @@
+package no.paneon.api.graph;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.lang.ref.SoftReference;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jgrapht.Graph;
+import org.jgrapht.GraphType;
+import org.jgrapht.graph.AbstractGraph;
+import org.jgrapht.graph.AsSubgraph;
+
+/*
+ * Subgraph of a graph with a GraphSnapshot, holding only the ids of its nodes and edges.
+ *
+ * Behaves as AsSubgraph (same iteration order, edges of a node in the order of the complete graph,
+ * removing a node removes its edges), but without keeping hash sets of nodes and edges per subgraph.
+ * A view of a view shares the members until one of them is changed (copy on write), and nodes and
+ * edges of the complete graph can be added back. The complete graph must not be changed while views exist.
+ *
+ * Node sets computed from the view (see getMemoized) are kept until the view is changed.
+ */
+public class SubGraphView extends AbstractGraph<Node,Edge> {
+
+	static final Logger LOG = LogManager.getLogger(SubGraphView.class);
+
+	private final GraphSnapshot snapshot;
+	private final Graph<Node,Edge> base;
+
+	private Members vertices;
+	private Members edges;
+
+	private boolean ownsVertices;
+	private boolean ownsEdges;
+
+	private final Set<Node> vertexSet = new VertexSet();
+	private final Set<Edge> edgeSet = new EdgeSet();
+
+	private SoftReference<Map<String,Map<Node,Set<Node>>>> memo = new SoftReference<>(null);
+	private long memoModifications = -1;
+
+	private SubGraphView(GraphSnapshot snapshot, Members vertices, Members edges, boolean owned) {
+		this.snapshot = snapshot;
+		this.base = snapshot.getGraph();
+		this.vertices = vertices;
+		this.edges = edges;
+		this.ownsVertices = owned;
+		this.ownsEdges = owned;
+	}
+
+	/*
+	 * Subgraph with all nodes and edges of the graph.
+	 * Falls back to AsSubgraph for graphs without a current snapshot.
+	 */
+	public static Graph<Node,Edge> of(Graph<Node,Edge> graph) {
+		if(graph instanceof SubGraphView) {
+			SubGraphView parent = (SubGraphView) graph;
+			parent.ownsVertices = false;
+			parent.ownsEdges = false;
+			return new SubGraphView(parent.snapshot, parent.vertices, parent.edges, false);
+		}
+
+		GraphSnapshot snapshot = GraphSnapshot.lookup(graph);
+		if(snapshot==null) return new AsSubgraph<>(graph);
+
+		Members vertices = new Members(snapshot.size());
+		for(int v=0; v<snapshot.size(); v++) vertices.add(v);
+
+		Members edges = new Members(snapshot.getEdgeCount());
+		for(int e=0; e<snapshot.getEdgeCount(); e++) edges.add(e);
+
+		return new SubGraphView(snapshot, vertices, edges, true);
+	}
+
+	/*
+	 * Subgraph induced by the nodes (those part of the graph), as new AsSubgraph<>(graph, nodes).
+	 * Falls back to AsSubgraph for graphs without a current snapshot.
+	 */
+	public static Graph<Node,Edge> of(Graph<Node,Edge> graph, Set<Node> nodes) {
+		SubGraphView parent = graph instanceof SubGraphView ? (SubGraphView) graph : null;
+
+		GraphSnapshot snapshot = parent!=null ? parent.snapshot : GraphSnapshot.lookup(graph);
+		if(snapshot==null) return new AsSubgraph<>(graph, nodes);
+
+		Members vertices = new Members(snapshot.size());
+		if(nodes.size()>graph.vertexSet().size()) {
+			for(Node node : graph.vertexSet()) {
+				if(nodes.contains(node)) vertices.add(snapshot.indexOf(node));
+			}
+		} else {
+			for(Node node : nodes) {
+				if(graph.containsVertex(node)) vertices.add(snapshot.indexOf(node));
+			}
+		}
+
+		Members edges = new Members(snapshot.getEdgeCount());
+		if(parent!=null) {
+			for(int i=0; i<parent.edges.length; i++) {
+				int e = parent.edges.order[i];
+				if(parent.edges.contains(e) && isInduced(snapshot, vertices, e)) edges.add(e);
+			}
+		} else {
+			for(int e=0; e<snapshot.getEdgeCount(); e++) {
+				if(isInduced(snapshot, vertices, e)) edges.add(e);
+			}
+		}
+
+		return new SubGraphView(snapshot, vertices, edges, true);
+	}
+
+	private static boolean isInduced(GraphSnapshot snapshot, Members vertices, int e) {
+		return vertices.contains(snapshot.edgeSources[e]) && vertices.contains(snapshot.edgeTargets[e]);
+	}
+
+	/*
+	 * Number of changes to the nodes and edges of this view
+	 */
+	public long getModificationCount() {
+		return vertices.modifications + edges.modifications;
+	}
+
+	/*
+	 * The node set computed by the function for the node, computed once per kind and node as long
+	 * as the view is not changed. Returns a new HashSet with the same iteration order each time.
+	 */
+	public Set<Node> getMemoized(String kind, Node node, Function<Node,Set<Node>> function) {
+		Map<String,Map<Node,Set<Node>>> results = memo.get();
+		if(results==null || memoModifications!=getModificationCount()) {
+			results = new HashMap<>();
+			memo = new SoftReference<>(results);
+			memoModifications = getModificationCount();
+		}
+
+		Map<Node,Set<Node>> resultsOfKind = results.computeIfAbsent(kind, k -> new HashMap<>());
+		Set<Node> res = resultsOfKind.get(node);
+		if(res==null) {
+			res = copyOf(function.apply(node));
+			if(memoModifications==getModificationCount()) resultsOfKind.put(node, res);
+		}
+
+		return copyOf(res);
+	}
+
+	private static Set<Node> copyOf(Set<Node> nodes) {
+		Set<Node> res = new HashSet<>();
+		res.addAll(nodes);
+		return res;
+	}
+
+	private Members vertices() {
+		if(!ownsVertices) {
+			vertices = vertices.copy();
+			ownsVertices = true;
+		}
+		return vertices;
+	}
+
+	private Members edges() {
+		if(!ownsEdges) {
+			edges = edges.copy();
+			ownsEdges = true;
+		}
+		return edges;
+	}
+
+	private int id(Node node) {
+		int id = snapshot.indexOf(node);
+		return id>=0 && vertices.contains(id) ? id : -1;
+	}
+
+	private int id(Edge edge) {
+		int id = snapshot.indexOf(edge);
+		return id>=0 && edges.contains(id) ? id : -1;
+	}
+
+	@Override
+	public Set<Edge> getAllEdges(Node sourceVertex, Node targetVertex) {
+		int from = id(sourceVertex);
+		int to = id(targetVertex);
+		if(from<0 || to<0) return null;
+
+		Set<Edge> res = new LinkedHashSet<>();
+		for(int p=snapshot.outOffsets[from]; p<snapshot.outOffsets[from+1]; p++) {
+			if(snapshot.outTargets[p]==to && edges.contains(snapshot.outEdges[p])) res.add(snapshot.getEdge(snapshot.outEdges[p]));
+		}
+		return res;
+	}
+
+	@Override
+	public Edge getEdge(Node sourceVertex, Node targetVertex) {
+		int from = id(sourceVertex);
+		int to = id(targetVertex);
+		if(from<0 || to<0) return null;
+
+		for(int p=snapshot.outOffsets[from]; p<snapshot.outOffsets[from+1]; p++) {
+			if(snapshot.outTargets[p]==to && edges.contains(snapshot.outEdges[p])) return snapshot.getEdge(snapshot.outEdges[p]);
+		}
+		return null;
+	}
+
+	@Override
+	public Supplier<Node> getVertexSupplier() {
+		return base.getVertexSupplier();
+	}
+
+	@Override
+	public Supplier<Edge> getEdgeSupplier() {
+		return base.getEdgeSupplier();
+	}
+
+	/*
+	 * Adds the first edge of the complete graph from source to target not already part of the view
+	 */
+	@Override
+	public Edge addEdge(Node sourceVertex, Node targetVertex) {
+		assertVertexExist(sourceVertex);
+		assertVertexExist(targetVertex);
+
+		int from = snapshot.indexOf(sourceVertex);
+		int to = snapshot.indexOf(targetVertex);
+		for(int p=snapshot.outOffsets[from]; p<snapshot.outOffsets[from+1]; p++) {
+			if(snapshot.outTargets[p]==to && !edges.contains(snapshot.outEdges[p])) {
+				edges().add(snapshot.outEdges[p]);
+				return snapshot.getEdge(snapshot.outEdges[p]);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public boolean addEdge(Node sourceVertex, Node targetVertex, Edge e) {
+		Objects.requireNonNull(e);
+
+		int id = snapshot.indexOf(e);
+		if(id<0) throw new IllegalArgumentException("no such edge in base graph");
+
+		assertVertexExist(sourceVertex);
+		assertVertexExist(targetVertex);
+
+		if(edges.contains(id)) return false;
+		return edges().add(id);
+	}
+
+	@Override
+	public Node addVertex() {
+		throw new UnsupportedOperationException("Cannot create new vertices from subgraph");
+	}
+
+	@Override
+	public boolean addVertex(Node v) {
+		Objects.requireNonNull(v);
+
+		int id = snapshot.indexOf(v);
+		if(id<0) throw new IllegalArgumentException("no such vertex in base graph");
+
+		if(vertices.contains(id)) return false;
+		return vertices().add(id);
+	}
+
+	@Override
+	public boolean containsEdge(Edge e) {
+		return id(e)>=0;
+	}
+
+	@Override
+	public boolean containsVertex(Node v) {
+		return id(v)>=0;
+	}
+
+	@Override
+	public Set<Edge> edgeSet() {
+		return edgeSet;
+	}
+
+	@Override
+	public int degreeOf(Node vertex) {
+		return inDegreeOf(vertex) + outDegreeOf(vertex);
+	}
+
+	/*
+	 * Incoming edges followed by the outgoing edges, self loops only once
+	 */
+	@Override
+	public Set<Edge> edgesOf(Node vertex) {
+		assertVertexExist(vertex);
+
+		int v = snapshot.indexOf(vertex);
+		Set<Edge> res = incoming(v);
+		for(int p=snapshot.outOffsets[v]; p<snapshot.outOffsets[v+1]; p++) {
+			if(snapshot.outTargets[p]!=v && edges.contains(snapshot.outEdges[p])) res.add(snapshot.getEdge(snapshot.outEdges[p]));
+		}
+		return res;
+	}
+
+	@Override
+	public int inDegreeOf(Node vertex) {
+		assertVertexExist(vertex);
+
+		int v = snapshot.indexOf(vertex);
+		int res = 0;
+		for(int p=snapshot.inOffsets[v]; p<snapshot.inOffsets[v+1]; p++) {
+			if(edges.contains(snapshot.inEdges[p])) res++;
+		}
+		return res;
+	}
+
+	@Override
+	public Set<Edge> incomingEdgesOf(Node vertex) {
+		assertVertexExist(vertex);
+		return incoming(snapshot.indexOf(vertex));
+	}
+
+	private Set<Edge> incoming(int v) {
+		Set<Edge> res = new LinkedHashSet<>();
+		for(int p=snapshot.inOffsets[v]; p<snapshot.inOffsets[v+1]; p++) {
+			if(edges.contains(snapshot.inEdges[p])) res.add(snapshot.getEdge(snapshot.inEdges[p]));
+		}
+		return res;
+	}
+
+	@Override
+	public int outDegreeOf(Node vertex) {
+		assertVertexExist(vertex);
+
+		int v = snapshot.indexOf(vertex);
+		int res = 0;
+		for(int p=snapshot.outOffsets[v]; p<snapshot.outOffsets[v+1]; p++) {
+			if(edges.contains(snapshot.outEdges[p])) res++;
+		}
+		return res;
+	}
+
+	@Override
+	public Set<Edge> outgoingEdgesOf(Node vertex) {
+		assertVertexExist(vertex);
+
+		int v = snapshot.indexOf(vertex);
+		Set<Edge> res = new LinkedHashSet<>();
+		for(int p=snapshot.outOffsets[v]; p<snapshot.outOffsets[v+1]; p++) {
+			if(edges.contains(snapshot.outEdges[p])) res.add(snapshot.getEdge(snapshot.outEdges[p]));
+		}
+		return res;
+	}
+
+	@Override
+	public Edge removeEdge(Node sourceVertex, Node targetVertex) {
+		Edge res = getEdge(sourceVertex, targetVertex);
+		if(res!=null) edges().remove(snapshot.indexOf(res));
+		return res;
+	}
+
+	@Override
+	public boolean removeEdge(Edge e) {
+		int id = id(e);
+		return id>=0 && edges().remove(id);
+	}
+
+	@Override
+	public boolean removeVertex(Node v) {
+		int id = id(v);
+		if(id<0) return false;
+
+		Members members = edges();
+		for(int p=snapshot.inOffsets[id]; p<snapshot.inOffsets[id+1]; p++) members.remove(snapshot.inEdges[p]);
+		for(int p=snapshot.outOffsets[id]; p<snapshot.outOffsets[id+1]; p++) members.remove(snapshot.outEdges[p]);
+
+		return vertices().remove(id);
+	}
+
+	@Override
+	public Set<Node> vertexSet() {
+		return vertexSet;
+	}
+
+	@Override
+	public Node getEdgeSource(Edge e) {
+		return base.getEdgeSource(e);
+	}
+
+	@Override
+	public Node getEdgeTarget(Edge e) {
+		return base.getEdgeTarget(e);
+	}
+
+	@Override
+	public GraphType getType() {
+		return base.getType();
+	}
+
+	@Override
+	public double getEdgeWeight(Edge e) {
+		return base.getEdgeWeight(e);
+	}
+
+	@Override
+	public void setEdgeWeight(Edge e, double weight) {
+		base.setEdgeWeight(e, weight);
+	}
+
+	/*
+	 * Ids as a bitset for membership, and in insertion order for iteration.
+	 * Removed ids stay in the order array until it is compacted.
+	 */
+	private static class Members {
+
+		final BitSet bits;
+		final BitSet listed;
+		int[] order;
+		int length;
+		int count;
+		long modifications;
+
+		Members(int capacity) {
+			this.bits = new BitSet(capacity);
+			this.listed = new BitSet(capacity);
+			this.order = new int[Math.max(capacity/8, 8)];
+		}
+
+		private Members(Members members) {
+			this.bits = (BitSet) members.bits.clone();
+			this.listed = (BitSet) members.bits.clone();
+			this.order = new int[Math.max(members.count, 8)];
+			for(int i=0; i<members.length; i++) {
+				if(members.bits.get(members.order[i])) this.order[this.length++] = members.order[i];
+			}
+			this.count = members.count;
+			this.modifications = members.modifications;
+		}
+
+		Members copy() {
+			return new Members(this);
+		}
+
+		boolean contains(int id) {
+			return id>=0 && bits.get(id);
+		}
+
+		boolean add(int id) {
+			if(bits.get(id)) return false;
+
+			if(listed.get(id)) compact();
+			if(length==order.length) order = Arrays.copyOf(order, 2*length);
+
+			order[length++] = id;
+			bits.set(id);
+			listed.set(id);
+			count++;
+			modifications++;
+			return true;
+		}
+
+		boolean remove(int id) {
+			if(!bits.get(id)) return false;
+
+			bits.clear(id);
+			count--;
+			modifications++;
+
+			if(length>2*count+64) compact();
+			return true;
+		}
+
+		private void compact() {
+			int pos = 0;
+			for(int i=0; i<length; i++) {
+				if(bits.get(order[i])) order[pos++] = order[i];
+			}
+			length = pos;
+			listed.clear();
+			listed.or(bits);
+		}
+
+	}
+
+	private abstract class MemberIterator<T> implements Iterator<T> {
+
+		private final Members members;
+		private final long expected;
+		private int next = 0;
+
+		MemberIterator(Members members) {
+			this.members = members;
+			this.expected = members.modifications;
+			advance();
+		}
+
+		private void advance() {
+			while(next<members.length && !members.bits.get(members.order[next])) next++;
+		}
+
+		abstract T get(int id);
+
+		@Override
+		public boolean hasNext() {
+			return next<members.length;
+		}
+
+		@Override
+		public T next() {
+			if(members.modifications!=expected) throw new ConcurrentModificationException();
+			if(!hasNext()) throw new NoSuchElementException();
+
+			T res = get(members.order[next++]);
+			advance();
+			return res;
+		}
+
+	}
+
+	private class VertexSet extends AbstractSet<Node> {
+
+		@Override
+		public Iterator<Node> iterator() {
+			return new MemberIterator<Node>(vertices) {
+				@Override
+				Node get(int id) {
+					return snapshot.getNode(id);
+				}
+			};
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return o instanceof Node && id((Node) o)>=0;
+		}
+
+		@Override
+		public int size() {
+			return vertices.count;
+		}
+
+	}
+
+	private class EdgeSet extends AbstractSet<Edge> {
+
+		@Override
+		public Iterator<Edge> iterator() {
+			return new MemberIterator<Edge>(edges) {
+				@Override
+				Edge get(int id) {
+					return snapshot.getEdge(id);
+				}
+			};
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return o instanceof Edge && id((Edge) o)>=0;
+		}
+
+		@Override
+		public int size() {
+			return edges.count;
+		}
+
+	}
+
+}
@@ -0,0 +1,88 @@
+package no.paneon.api.graph;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.GraphDelegator;
+
+/*
+ * The complete graph of a CoreAPIGraph, counting the changes to its nodes and edges.
+ * Holds the GraphSnapshot built from it, which GraphSnapshot.lookup() returns as long as
+ * the graph has not been changed since.
+ */
+class VersionedGraph extends GraphDelegator<Node,Edge> {
+
+	private static final long serialVersionUID = 1L;
+
+	private volatile long version = 0;
+
+	private transient volatile GraphSnapshot snapshot;
+
+	VersionedGraph(Graph<Node,Edge> graph) {
+		super(graph);
+	}
+
+	long getVersion() {
+		return version;
+	}
+
+	GraphSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	void setSnapshot(GraphSnapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	private void modified() {
+		version = version + 1;
+	}
+
+	@Override
+	public Edge addEdge(Node sourceVertex, Node targetVertex) {
+		Edge res = super.addEdge(sourceVertex, targetVertex);
+		if(res!=null) modified();
+		return res;
+	}
+
+	@Override
+	public boolean addEdge(Node sourceVertex, Node targetVertex, Edge e) {
+		boolean res = super.addEdge(sourceVertex, targetVertex, e);
+		if(res) modified();
+		return res;
+	}
+
+	@Override
+	public Node addVertex() {
+		Node res = super.addVertex();
+		modified();
+		return res;
+	}
+
+	@Override
+	public boolean addVertex(Node v) {
+		boolean res = super.addVertex(v);
+		if(res) modified();
+		return res;
+	}
+
+	@Override
+	public boolean removeEdge(Edge e) {
+		boolean res = super.removeEdge(e);
+		if(res) modified();
+		return res;
+	}
+
+	@Override
+	public Edge removeEdge(Node sourceVertex, Node targetVertex) {
+		Edge res = super.removeEdge(sourceVertex, targetVertex);
+		if(res!=null) modified();
+		return res;
+	}
+
+	@Override
+	public boolean removeVertex(Node v) {
+		boolean res = super.removeVertex(v);
+		if(res) modified();
+		return res;
+	}
+
+}
@@ -0,0 +1,109 @@
+package no.paneon.api.graph.complexity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jgrapht.Graph;
+
+/*
+ * Immutable int-indexed view of the outgoing edges of a graph (compressed sparse rows).
+ *
+ * The vertices are numbered 0..size()-1, and the edges leaving vertex v are
+ * found at positions first(v) to end(v)-1 in the target and edge arrays.
+ */
+public class Adjacency<N,E> {
+
+	private final List<N> nodes;
+	private final Map<N,Integer> index;
+
+	private final int[] offsets;
+	private final int[] targets;
+	private final Object[] edges;
+
+	private Adjacency(List<N> nodes, Map<N,Integer> index, int[] offsets, int[] targets, Object[] edges) {
+		this.nodes = nodes;
+		this.index = index;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.edges = edges;
+	}
+
+	public static <N,E> Adjacency<N,E> of(Graph<N,E> graph) {
+		List<N> nodes = new ArrayList<>(graph.vertexSet());
+		Map<N,Integer> index = new HashMap<>();
+		for(int i=0; i<nodes.size(); i++) index.put(nodes.get(i), i);
+
+		int[] offsets = new int[nodes.size()+1];
+		int[] targets = new int[graph.edgeSet().size()];
+		Object[] edges = new Object[targets.length];
+
+		int pos=0;
+		for(int i=0; i<nodes.size(); i++) {
+			offsets[i] = pos;
+			for(E edge : graph.outgoingEdgesOf(nodes.get(i))) {
+				targets[pos] = index.get(graph.getEdgeTarget(edge));
+				edges[pos] = edge;
+				pos++;
+			}
+		}
+		offsets[nodes.size()] = pos;
+
+		return new Adjacency<>(nodes, index, offsets, targets, edges);
+	}
+
+	/*
+	 * Adjacency over existing compressed rows, without edge objects
+	 */
+	public static <N> Adjacency<N,Void> of(List<N> nodes, int[] offsets, int[] targets) {
+		Map<N,Integer> index = new HashMap<>();
+		for(int i=0; i<nodes.size(); i++) index.put(nodes.get(i), i);
+
+		return new Adjacency<>(nodes, index, offsets, targets, new Object[targets.length]);
+	}
+
+	public int size() {
+		return nodes.size();
+	}
+
+	/*
+	 * The index of the node, -1 if not part of the graph
+	 */
+	public int indexOf(N node) {
+		Integer res = index.get(node);
+		return res!=null ? res : -1;
+	}
+
+	public N getNode(int vertex) {
+		return nodes.get(vertex);
+	}
+
+	public int first(int vertex) {
+		return offsets[vertex];
+	}
+
+	public int end(int vertex) {
+		return offsets[vertex+1];
+	}
+
+	public int target(int position) {
+		return targets[position];
+	}
+
+	@SuppressWarnings("unchecked")
+	public E edge(int position) {
+		return (E) edges[position];
+	}
+
+	/*
+	 * Map from node to value for all nodes in the graph
+	 */
+	public Map<N,Integer> toMap(int[] values) {
+		Map<N,Integer> res = new LinkedHashMap<>();
+		for(int i=0; i<nodes.size(); i++) res.put(nodes.get(i), values[i]);
+		return res;
+	}
+
+}
@@ -9,6 +9,10 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 
 import static java.util.stream.Collectors.toList;
@@ -25,13 +29,16 @@ import org.jgrapht.graph.AsSubgraph;
 import no.paneon.api.graph.APIGraph;
 import no.paneon.api.graph.CoreAPIGraph;
 import no.paneon.api.graph.Edge;
+import no.paneon.api.graph.GraphSnapshot;
 import no.paneon.api.graph.Node;
 import no.paneon.api.graph.Property;
 import no.paneon.api.model.APIModel;
+import no.paneon.api.model.APIModelContext;
 import no.paneon.api.utils.Config;
 import no.paneon.api.utils.Out;
 import no.paneon.api.utils.Utils;
 import no.paneon.api.logging.LogMethod;
+import no.paneon.api.logging.PhaseTracer;
 import no.paneon.api.logging.AspectLogger.LogLevel;
 
 public class ComplexityAdjustedAPIGraph {
@@ -47,6 +54,9 @@ public class ComplexityAdjustedAPIGraph {
 	static final String REF_OR_VALUE = "RefOrValue";
 	static final String GRAPH_PRUNE_NONINHERIT_LIMIT = "graphPruneNonInheritLimit";
 	
+	static final String PARALLELISM = "subGraphParallelism";
+	static final int DEFAULT_PARALLELISM = 0;
+	
 	boolean keepTechnicalEdges;
 	
 	public ComplexityAdjustedAPIGraph(CoreAPIGraph graph, boolean keepTechnicalEdges) {
@@ -66,13 +76,70 @@ public class ComplexityAdjustedAPIGraph {
 
 	@LogMethod(level=LogLevel.DEBUG)
 	public void generateSubGraphsForResource(List<String> allResources, String resource) {
+		Map<String, Map<String,Graph<Node,Edge>>> res = createSubGraphsForResource(allResources, resource);
+		
+		if(!res.isEmpty()) this.allGraphs = res;
+	}
+	
+	/*
+	 * Generate the sub graphs of each of the resources in parallel, and add them to the sub graphs already generated.
+	 * The generation of one resource only reads the complete graph, and builds its own sub graph views of it.
+	 */
+	@LogMethod(level=LogLevel.DEBUG)
+	public void generateSubGraphsForResources(List<String> allResources, Collection<String> resources) {
+		int parallelism = Config.getInteger(PARALLELISM, DEFAULT_PARALLELISM);
+		if(parallelism<=0) parallelism = Runtime.getRuntime().availableProcessors();
+		parallelism = Math.min(parallelism, resources.size());
+		
+		if(parallelism<=1) {
+			resources.forEach(resource -> this.allGraphs.putAll( createSubGraphsForResource(allResources, resource)) );
+			return;
+		}
+		
+		APIModelContext model = graph.getModel();
+		
+		// the lazily built indexes are shared by all resources, build them before the workers start
+		GraphSnapshot snapshot = graph.getSnapshot();
+		if(snapshot!=null) snapshot.getReachability();
+		
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+			Thread thread = new Thread(runnable, "subgraph-generation");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		try {
+			Map<String, Future<Map<String, Map<String,Graph<Node,Edge>>>>> generated = new LinkedHashMap<>();
+			for(String resource : resources) {
+				generated.computeIfAbsent(resource, 
+						r -> executor.submit(() -> model.call(() -> createSubGraphsForResource(allResources, r))));
+			}
+			
+			for(Future<Map<String, Map<String,Graph<Node,Edge>>>> future : generated.values()) {
+				this.allGraphs.putAll( future.get() );
+			}
+			
+		} catch(InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while generating the sub graphs of " + resources, ex);
+		} catch(ExecutionException ex) {
+			if(ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+			throw new IllegalStateException(ex.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		
+	    LOG.debug("### generateSubGraphsForResources: resources={} allGraphs={}", resources, this.allGraphs.keySet());
+	}
+	
+	private Map<String, Map<String,Graph<Node,Edge>>> createSubGraphsForResource(List<String> allResources, String resource) {
 	    LOG.debug("### generateSubGraphsForResource: resource=" + resource);
 
 	    Node resourceNode = graph.getNode(resource);
 	    
 	    if(resourceNode==null) {
 	    	Out.printAlways("... specified resource '" + resource + "' not found in API - no further processing");
-	    	return;
+	    	return new HashMap<>();
 	    }
 	    
 	    Graph<Node,Edge> resourceGraph = CoreAPIGraph.getSubGraphWithInheritance(allResources, graph.getCompleteGraph(), resourceNode, resourceNode);
@@ -98,10 +165,11 @@ public class ComplexityAdjustedAPIGraph {
 
 	    LOG.debug("### generateSubGraphsForResource: resource={} graphMap={}", resource, graphMap.keySet());
 
-	    this.allGraphs = adjustSubGraphs(allResources, resourceNode, resourceGraph, graphMap);
+	    Map<String, Map<String,Graph<Node,Edge>>> res = adjustSubGraphs(allResources, resourceNode, resourceGraph, graphMap);
 	    	    
-	    LOG.debug("### generateSubGraphsForResource: resource={} allGraphs={}", resource, this.allGraphs.keySet());
+	    LOG.debug("### generateSubGraphsForResource: resource={} allGraphs={}", resource, res.keySet());
 
+	    return res;
 	}
 	
 
@@ -1001,6 +1069,13 @@ public class ComplexityAdjustedAPIGraph {
 	
 	
     private Map<String, Map<String,Graph<Node,Edge>>> adjustSubGraphs(Collection<String> allResources, Node resourceNode, Graph<Node, Edge> resourceGraph, Map<String, Graph<Node, Edge>> graphMap) {
+    	try(PhaseTracer.Span span = PhaseTracer.start("adjustSubGraphs")) {
+    		span.setGraph(resourceGraph);
+    		return adjustResourceSubGraphs(allResources, resourceNode, resourceGraph, graphMap);
+    	}
+    }
+
+    private Map<String, Map<String,Graph<Node,Edge>>> adjustResourceSubGraphs(Collection<String> allResources, Node resourceNode, Graph<Node, Edge> resourceGraph, Map<String, Graph<Node, Edge>> graphMap) {
     	
 	    LOG.debug("##1 adjustSubGraphs: resource={} vertexSet={}" , resourceNode, resourceGraph.vertexSet() );
 	    LOG.debug("##1 adjustSubGraphs: resource={} edges={}" , resourceNode, resourceGraph.edgeSet() );
@@ -0,0 +1,302 @@
+package no.paneon.api.graph.complexity;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jgrapht.Graph;
+
+/*
+ * The elementary cycles of a graph, with edges taken as undirected, and an index from node to cycles.
+ *
+ * Only the nodes connected to the start node and accepted by the filter are considered.
+ * Bridges are removed first: a node is on a cycle exactly if its 2-edge-connected component
+ * has more than one node, which is what contains() answers, independent of the limits below.
+ *
+ * The cycles are enumerated on first use, each within one component and once, in its canonical
+ * rotation: starting at its lowest numbered node and continuing in the direction of the lower
+ * numbered neighbour. A cycle is a closed list of nodes (the first node is repeated at the end),
+ * and the cycles are sorted by size. The enumeration can be limited by cycle length (number of
+ * distinct nodes) and by the number of cycles, 0 means no limit.
+ */
+public class CycleIndex<N> {
+
+	static final Logger LOG = LogManager.getLogger(CycleIndex.class);
+
+	private final Search<N,?> search;
+	private final Set<N> onCycle;
+
+	private List<List<N>> cycles;
+	private Map<N,List<List<N>>> cyclesByNode;
+	private boolean truncated;
+
+	private CycleIndex(Search<N,?> search) {
+		this.search = search;
+		this.onCycle = search!=null ? search.onCycle() : Collections.emptySet();
+	}
+
+	public static <N,E> CycleIndex<N> of(Graph<N,E> graph, N start, Predicate<N> include, int maxLength, int maxCount) {
+		if(!graph.vertexSet().contains(start)) {
+			LOG.debug("... cycle identifier: start node {} missing in graph {}",  start, graph.vertexSet());
+			return new CycleIndex<>(null);
+		}
+
+		return new CycleIndex<>(new Search<>(graph, start, include, maxLength, maxCount));
+	}
+
+	public List<List<N>> getCycles() {
+		enumerate();
+		return cycles;
+	}
+
+	public boolean contains(N node) {
+		return onCycle.contains(node);
+	}
+
+	public List<List<N>> getCycles(N node) {
+		enumerate();
+		return cyclesByNode.getOrDefault(node, Collections.emptyList());
+	}
+
+	/*
+	 * Cycles including the node, grouped by size
+	 */
+	public Map<Integer,List<List<N>>> getCyclesBySize(N node) {
+		return getCycles(node).stream().collect(Collectors.groupingBy(List::size));
+	}
+
+	/*
+	 * True if the enumeration stopped at the maximum number of cycles
+	 */
+	public boolean isTruncated() {
+		enumerate();
+		return truncated;
+	}
+
+	private synchronized void enumerate() {
+		if(cycles!=null) return;
+
+		List<List<N>> found = search!=null ? search.run() : new ArrayList<>();
+
+		this.truncated = search!=null && search.truncated;
+		this.cycles = Collections.unmodifiableList(found);
+		this.cyclesByNode = new HashMap<>();
+
+		for(List<N> cycle : found) {
+			for(N node : new LinkedHashSet<>(cycle)) {
+				cyclesByNode.computeIfAbsent(node, n -> new ArrayList<>()).add(cycle);
+			}
+		}
+
+		if(truncated) LOG.debug("... cycle identifier: limited to {} cycles", found.size());
+	}
+
+	private static class Search<N,E> {
+
+		private final List<N> nodes = new ArrayList<>();
+		private final int[][] neighbours;
+		private final int[] component;
+
+		private final int maxLength;
+		private final int maxCount;
+
+		private final List<List<N>> found = new ArrayList<>();
+		private boolean truncated = false;
+
+		private int[] path;
+		private boolean[] onPath;
+
+		Search(Graph<N,E> graph, N start, Predicate<N> include, int maxLength, int maxCount) {
+			this.maxLength = maxLength;
+			this.maxCount = maxCount;
+			this.neighbours = connected(graph, start, include);
+			this.component = twoEdgeConnectedComponents();
+		}
+
+		/*
+		 * The nodes of the components with more than one node
+		 */
+		Set<N> onCycle() {
+			int[] size = new int[nodes.size()];
+			for(int c : component) size[c]++;
+
+			Set<N> res = new HashSet<>();
+			for(int v=0; v<component.length; v++) {
+				if(size[component[v]]>1) res.add(nodes.get(v));
+			}
+			return res;
+		}
+
+		List<List<N>> run() {
+			int n = nodes.size();
+			path = new int[n];
+			onPath = new boolean[n];
+
+			for(int s=0; s<n && !truncated; s++) {
+				path[0] = s;
+				onPath[s] = true;
+				extend(s, s, 1);
+				onPath[s] = false;
+			}
+
+			found.sort((a,b) -> a.size()-b.size());
+
+			LOG.debug("cycles: nodes={} cycles={} truncated={}", n, found.size(), truncated);
+
+			return found;
+		}
+
+		private void extend(int s, int v, int length) {
+			for(int w : neighbours[v]) {
+				if(truncated) return;
+
+				if(w==s) {
+					if(length>=3 && path[1]<path[length-1]) record(length);
+				} else if(w>s && !onPath[w] && component[w]==component[s] && (maxLength<=0 || length<maxLength)) {
+					path[length] = w;
+					onPath[w] = true;
+					extend(s, w, length+1);
+					onPath[w] = false;
+				}
+			}
+		}
+
+		private void record(int length) {
+			List<N> cycle = new ArrayList<>(length+1);
+			for(int i=0; i<length; i++) cycle.add(nodes.get(path[i]));
+			cycle.add(nodes.get(path[0]));
+			found.add(cycle);
+
+			truncated = maxCount>0 && found.size()>=maxCount;
+		}
+
+		/*
+		 * Simple undirected neighbour lists of the included nodes connected to the start node
+		 */
+		private int[][] connected(Graph<N,E> graph, N start, Predicate<N> include) {
+			Map<N,Integer> index = new HashMap<>();
+			Deque<N> queue = new ArrayDeque<>();
+
+			index.put(start, 0);
+			nodes.add(start);
+			queue.add(start);
+
+			List<Set<Integer>> adjacent = new ArrayList<>();
+			adjacent.add(new LinkedHashSet<>());
+
+			while(!queue.isEmpty()) {
+				N node = queue.poll();
+				int v = index.get(node);
+
+				for(E edge : graph.edgesOf(node)) {
+					N other = graph.getEdgeSource(edge).equals(node) ? graph.getEdgeTarget(edge) : graph.getEdgeSource(edge);
+					if(other.equals(node) || !include.test(other)) continue;
+
+					Integer w = index.get(other);
+					if(w==null) {
+						w = nodes.size();
+						index.put(other, w);
+						nodes.add(other);
+						adjacent.add(new LinkedHashSet<>());
+						queue.add(other);
+					}
+					adjacent.get(v).add(w);
+					adjacent.get(w).add(v);
+				}
+			}
+
+			int[][] res = new int[nodes.size()][];
+			for(int v=0; v<res.length; v++) {
+				res[v] = adjacent.get(v).stream().mapToInt(Integer::intValue).sorted().toArray();
+			}
+			return res;
+		}
+
+		/*
+		 * Components after removing the bridges (lowlink, iterative), no cycle crosses a bridge
+		 */
+		private int[] twoEdgeConnectedComponents() {
+			int n = neighbours.length;
+			int[] order = new int[n];
+			int[] low = new int[n];
+			int[] parent = new int[n];
+			int[] next = new int[n];
+			Arrays.fill(order, -1);
+
+			Set<Long> bridges = new LinkedHashSet<>();
+			int counter = 0;
+
+			for(int root=0; root<n; root++) {
+				if(order[root]>=0) continue;
+
+				Deque<Integer> stack = new ArrayDeque<>();
+				order[root] = low[root] = counter++;
+				parent[root] = -1;
+				stack.push(root);
+
+				while(!stack.isEmpty()) {
+					int v = stack.peek();
+					if(next[v]<neighbours[v].length) {
+						int w = neighbours[v][next[v]++];
+						if(order[w]<0) {
+							order[w] = low[w] = counter++;
+							parent[w] = v;
+							stack.push(w);
+						} else if(w!=parent[v]) {
+							low[v] = Math.min(low[v], order[w]);
+						}
+					} else {
+						stack.pop();
+						int u = parent[v];
+						if(u>=0) {
+							low[u] = Math.min(low[u], low[v]);
+							if(low[v]>order[u]) bridges.add(edgeKey(u,v));
+						}
+					}
+				}
+			}
+
+			int[] res = new int[n];
+			Arrays.fill(res, -1);
+			int components = 0;
+			for(int s=0; s<n; s++) {
+				if(res[s]>=0) continue;
+				Deque<Integer> queue = new ArrayDeque<>();
+				res[s] = components;
+				queue.add(s);
+				while(!queue.isEmpty()) {
+					int v = queue.poll();
+					for(int w : neighbours[v]) {
+						if(res[w]<0 && !bridges.contains(edgeKey(v,w))) {
+							res[w] = components;
+							queue.add(w);
+						}
+					}
+				}
+				components++;
+			}
+
+			LOG.debug("twoEdgeConnectedComponents: nodes={} bridges={} components={}", n, bridges.size(), components);
+
+			return res;
+		}
+
+		private static long edgeKey(int u, int v) {
+			return u<v ? ((long)u<<32) | v : ((long)v<<32) | u;
+		}
+
+	}
+
+}
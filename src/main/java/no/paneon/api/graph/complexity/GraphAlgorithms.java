@@ -1,6 +1,7 @@
 package no.paneon.api.graph.complexity;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -9,21 +10,23 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
 import no.paneon.api.graph.Edge;
+import no.paneon.api.graph.GraphSnapshot;
 import no.paneon.api.graph.Node;
+import no.paneon.api.graph.SubGraphView;
 import no.paneon.api.logging.LogMethod;
+import no.paneon.api.utils.Config;
 import no.paneon.api.utils.Out;
 import no.paneon.api.logging.AspectLogger.LogLevel;
 
 import org.apache.logging.log4j.Logger;
 import org.jgrapht.Graph;
-import org.jgrapht.graph.AsSubgraph;
 import org.jgrapht.traverse.BreadthFirstIterator;
 import org.jgrapht.traverse.GraphIterator;
 import org.apache.logging.log4j.LogManager;
@@ -32,12 +35,18 @@ public class GraphAlgorithms {
 
     static final Logger LOG = LogManager.getLogger(GraphAlgorithms.class);
 
-	Set<Node> settledNodes;
-	Set<Node> unSettledNodes;
+    static final String MAX_CYCLE_LENGTH = "maxCycleLength";
+    static final String MAX_CYCLES = "maxCycles";
+
+    static final String CLOSURE = "closure";
+
+    static final int DEFAULT_MAX_CYCLE_LENGTH = 12;
+    static final int DEFAULT_MAX_CYCLES = 1000;
 
 	Map<Node,Node> predecessors;
 
 	Graph<Node,Edge> graph;
+	Adjacency<Node,Edge> adjacency;
 	Node resource;
 	
 	GraphAlgorithms(Graph<Node,Edge> graph, Node resource) {
@@ -45,9 +54,6 @@ public class GraphAlgorithms {
 		this.graph = graph;
 		this.resource = resource;
 		
-		this.settledNodes = new HashSet<>();
-		this.unSettledNodes = new HashSet<>();
-
 		this.predecessors = new HashMap<>();
 
 	}
@@ -55,112 +61,26 @@ public class GraphAlgorithms {
 	@LogMethod(level=LogLevel.DEBUG)
 	Map<Node,Integer> computeShortestPath() {
 
-		Map<Node,Integer> distance = new HashMap<>();
+		ShortestPaths<Node,Edge> paths = ShortestPaths.unweighted(getAdjacency(), resource);
 
-		for(Node node : graph.vertexSet() ) {
-			distance.put(node,  Integer.MAX_VALUE);
-		}
-		
-		unSettledNodes.add(resource); 
+		Map<Node,Integer> distance = paths.getDistanceMap();
 		distance.put(resource,  0);
 
-		while (!unSettledNodes.isEmpty() ) {
-			Node pivot = getNodeWithShortestDistance(distance, unSettledNodes);
-
-			unSettledNodes.remove(pivot); 
-			settledNodes.add(pivot); 
-
-			evaluatedNeighbors(distance, pivot);
-		}
+		predecessors = paths.getPredecessorMap();
 
 		return distance;
 
 	}
 
-	@LogMethod(level=LogLevel.DEBUG)
-	private void evaluatedNeighbors(Map<Node,Integer> distance, Node pivot) {
-		Set<Node> neighbours = getOutboundNeighbours(pivot);
-		neighbours.removeAll(settledNodes);
-
-		for(Node candidate : neighbours) {
-			int candidateDistance = distance.get(pivot) + getDistance(pivot, candidate);
-			if(!distance.containsKey(candidate) || (candidateDistance < distance.get(candidate)) ) {
-				distance.put(candidate, candidateDistance);
-				predecessors.put(candidate, pivot);
-				unSettledNodes.add(candidate);
-			}  
-
-		}
-	}
-
-	@LogMethod(level=LogLevel.DEBUG)
-	private Integer getDistance(Node pivot, Node neighbour) {
-		Set<Node> neighbours = getOutboundNeighbours(pivot);
-		if(neighbours.contains(neighbour))
-			return 1;
-		else
-			return Integer.MAX_VALUE;
-	}
-
-	@LogMethod(level=LogLevel.DEBUG)
-	private Node getNodeWithShortestDistance(Map<Node,Integer> distance, Set<Node> nodes) {
-		Node res = null;
-		for (Node node : nodes) {
-			if (res == null) {
-				res = node;
-			} else if (distance.get(node) < distance.get(res)) {
-				res = node;
-			}
-		}
-		return res;
-	}
-
 
 	@LogMethod(level=LogLevel.DEBUG)
 	Map<Node,Integer> computeLongestPath() {
-		return computeLongestPath(resource, new HashSet<>());
+		return LongestPaths.from(getAdjacency(), resource);
 	}
 
-	@LogMethod(level=LogLevel.DEBUG)
-	Map<Node,Integer> computeLongestPath(Node pivot, Set<Node> visited) {
-
-		Set<Node> subGraph = getNodesOfSubGraph(this.graph, pivot);
-
-		Map<Node,Integer> distance = new HashMap<>();
-
-		for(Node node : subGraph) distance.put(node, Integer.MIN_VALUE);
-		distance.put(pivot,0);
-
-		Set<Node> neighbours = getOutboundNeighbours(pivot);
-
-		neighbours.retainAll(visited);
-
-		for(Node node : neighbours) {
-			distance.put(node, distance.get(node) + 1);
-		}
-
-		neighbours = getOutboundNeighbours(pivot);
-		neighbours.removeAll(visited);
-
-		for(Node node : neighbours) {
-
-			visited.add(node);
-
-			Map<Node,Integer> longestPathsFromNeighbour = computeLongestPath(node, visited); 
-			for(Entry<Node, Integer> entry : longestPathsFromNeighbour.entrySet()) {
-
-				Node seen = entry.getKey();
-				Integer candidateLongest = entry.getValue();
-
-				if(!distance.containsKey(seen) || candidateLongest > distance.get(seen)) {
-					distance.put(seen, candidateLongest + 1);
-				}
-			}
-
-		}
-
-		return distance;
-
+	private Adjacency<Node,Edge> getAdjacency() {
+		if(adjacency==null) adjacency = Adjacency.of(graph);
+		return adjacency;
 	}
 
 //	@LogMethod(level=LogLevel.DEBUG)
@@ -237,7 +157,7 @@ public class GraphAlgorithms {
 	public static Graph<Node,Edge> getSubGraph(Graph<Node,Edge> graph, Node node) {
 		Set<Node> nodes = getNodesOfSubGraph(graph, node);		
 		
-		return new AsSubgraph<>(graph, nodes);
+		return SubGraphView.of(graph, nodes);
 	}
 	
 	@LogMethod(level=LogLevel.DEBUG)
@@ -248,7 +168,7 @@ public class GraphAlgorithms {
 			
 		for(Node neighbour : neighbours) {
 			Set<Node> sub = getNodesOfSubGraph(graph, neighbour);
-			Graph<Node,Edge> subGraph = new AsSubgraph<>(graph, sub);
+			Graph<Node,Edge> subGraph = SubGraphView.of(graph, sub);
 			res.put(node,  subGraph);
 		}
 		
@@ -293,12 +213,29 @@ public class GraphAlgorithms {
 	}
 	
 	@LogMethod(level=LogLevel.DEBUG)
+	@SuppressWarnings("unchecked")
 	public static <N,E> Set<N> getNodesOfSubGraph(Graph<N,E> graph, N node) {
 		Set<N> res = new HashSet<>();
 
 		if(!graph.vertexSet().contains(node)) 
 			return res;
 
+		GraphSnapshot snapshot = GraphSnapshot.lookup(graph);
+		if(snapshot!=null && node instanceof Node) {
+			BitSet closure = snapshot.getReachability().getClosure(snapshot.indexOf((Node)node));
+			return (Set<N>) snapshot.toNodes(closure);
+		}
+
+		if(graph instanceof SubGraphView) {
+			return (Set<N>) ((SubGraphView) graph).getMemoized(CLOSURE, (Node) node, n -> getClosure((Graph<Node,Edge>) graph, n));
+		}
+
+		return getClosure(graph, node);
+	}
+
+	private static <N,E> Set<N> getClosure(Graph<N,E> graph, N node) {
+		Set<N> res = new HashSet<>();
+
 		res.add(node);
 		
 		GraphIterator<N, E> it = new BreadthFirstIterator<>(graph, node);
@@ -354,6 +291,10 @@ public class GraphAlgorithms {
         return new LinkedList<>(); 
     } 
   
+	/*
+	 * The circles as found by a depth first search from each node, used by APIGraph.getCircles().
+	 * Not every elementary cycle is listed, see getCycleIndex for that
+	 */
 	@LogMethod(level=LogLevel.DEBUG)
     public static List<List<Node>>  cyclicAllCycles(Graph<Node,Edge> graph, Node startNode) 
     { 
@@ -463,6 +404,20 @@ public class GraphAlgorithms {
 		return res;
 	}
 
+	/*
+	 * The cycles through non-enum nodes connected to the start node, see CycleIndex.
+	 * Membership (CycleIndex.contains) is exact, the listed cycles are every elementary cycle
+	 * within maxCycleLength and maxCycles - unlike cyclicAllCycles, which lists a subset
+	 */
+	@LogMethod(level=LogLevel.DEBUG)
+	public static CycleIndex<Node> getCycleIndex(Graph<Node,Edge> graph, Node startNode) {
+		Predicate<Node> isEnumNode = Node::isEnumNode;
+		
+		return CycleIndex.of(graph, startNode, isEnumNode.negate(), 
+							 Config.getInteger(MAX_CYCLE_LENGTH, DEFAULT_MAX_CYCLE_LENGTH), 
+							 Config.getInteger(MAX_CYCLES, DEFAULT_MAX_CYCLES));
+	}
+	
 	public static Map<Integer, List<List<Node>> > getCirclesForNode(List<List<Node>> circles, Node node) {
 		return circles.stream().filter(circle -> circle.contains(node)).collect(Collectors.groupingBy(List::size));
 	}
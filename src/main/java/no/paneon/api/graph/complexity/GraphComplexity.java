@@ -25,6 +25,7 @@ import no.paneon.api.utils.Config;
 import no.paneon.api.utils.Out;
 import no.paneon.api.utils.Utils;
 import no.paneon.api.logging.LogMethod;
+import no.paneon.api.logging.PhaseTracer;
 import no.paneon.api.logging.AspectLogger.LogLevel;
 
 import org.apache.logging.log4j.Logger;
@@ -58,6 +59,13 @@ public class GraphComplexity {
 
 	@LogMethod(level=LogLevel.DEBUG)
 	public Map<Node, Integer> computeGraphComplexity() {
+		try(PhaseTracer.Span span = PhaseTracer.start("GraphComplexity")) {
+			span.setGraph(graph);
+			return computeNodeComplexity();
+		}
+	}
+
+	private Map<Node, Integer> computeNodeComplexity() {
 
 		LOG.debug("computeGraphComplexity: nodes={}", this.graph.vertexSet());
 
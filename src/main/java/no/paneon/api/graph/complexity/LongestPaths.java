@@ -0,0 +1,101 @@
+package no.paneon.api.graph.complexity;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Longest path distances from a source vertex, computed in linear time.
+ *
+ * The reachable part of the graph is condensed into strongly connected components,
+ * and the components are processed in topological order. Between components the
+ * distance is the exact longest path of the condensation, inside a component it follows
+ * a depth first spanning tree from the entry vertices. Every distance is the length of
+ * a simple path from the source (exact when the graph is acyclic).
+ *
+ * Inside cycles this differs from the recursive search used before, which depended on the order the
+ * neighbours were visited and counted self references, so the GraphComplexity scores of resources
+ * with cycles differ as well (pinned by GraphComplexityTest).
+ */
+public class LongestPaths {
+
+	private static final int NONE = Integer.MIN_VALUE;
+
+	private LongestPaths() {
+	}
+
+	/*
+	 * Distances for the vertices reachable from the source, including the source itself
+	 */
+	public static <N,E> Map<N,Integer> from(Adjacency<N,E> adjacency, N source) {
+		Map<N,Integer> res = new LinkedHashMap<>();
+
+		int start = adjacency.indexOf(source);
+		if(start<0) {
+			res.put(source, 0);
+			return res;
+		}
+
+		int[] longest = compute(adjacency, start);
+		for(int v=0; v<longest.length; v++) {
+			if(longest[v]!=NONE) res.put(adjacency.getNode(v), longest[v]);
+		}
+
+		return res;
+	}
+
+	static int[] compute(Adjacency<?,?> adjacency, int start) {
+		int n = adjacency.size();
+
+		StronglyConnectedComponents scc = StronglyConnectedComponents.of(adjacency, start);
+
+		int[] longest = new int[n];
+		int[] entry = new int[n];
+		boolean[] visited = new boolean[n];
+		int[] stack = new int[n];
+
+		Arrays.fill(longest, NONE);
+		Arrays.fill(entry, NONE);
+		entry[start] = 0;
+
+		for(int c=scc.getComponentCount()-1; c>=0; c--) {
+			int size = scc.getSize(c);
+
+			Integer[] entries = new Integer[size];
+			for(int i=0; i<size; i++) entries[i] = scc.getMember(c, i);
+			Arrays.sort(entries, (a,b) -> Integer.compare(entry[b], entry[a]));
+
+			for(int root : entries) {
+				if(visited[root] || entry[root]==NONE) continue;
+
+				visited[root] = true;
+				longest[root] = entry[root];
+
+				int sp = 0;
+				stack[sp++] = root;
+				while(sp>0) {
+					int v = stack[--sp];
+					for(int p=adjacency.first(v); p<adjacency.end(v); p++) {
+						int w = adjacency.target(p);
+						if(visited[w] || scc.getComponent(w)!=c) continue;
+
+						visited[w] = true;
+						longest[w] = Math.max(entry[w], longest[v]+1);
+						stack[sp++] = w;
+					}
+				}
+			}
+
+			for(int i=0; i<size; i++) {
+				int v = scc.getMember(c, i);
+				for(int p=adjacency.first(v); p<adjacency.end(v); p++) {
+					int w = adjacency.target(p);
+					if(scc.getComponent(w)!=c) entry[w] = Math.max(entry[w], longest[v]+1);
+				}
+			}
+		}
+
+		return longest;
+	}
+
+}
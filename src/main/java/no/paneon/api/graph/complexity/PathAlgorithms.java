@@ -1,12 +1,8 @@
 package no.paneon.api.graph.complexity;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
 
-import no.paneon.api.graph.CoreAPIGraph;
 import no.paneon.api.graph.Edge;
 import no.paneon.api.graph.Node;
 import no.paneon.api.logging.LogMethod;
@@ -20,12 +16,10 @@ public class PathAlgorithms {
 
     static final Logger LOG = LogManager.getLogger(PathAlgorithms.class);
 
-	Set<Node> settledNodes;
-	Set<Node> unSettledNodes;
-
 	Map<Node,Node> predecessors;
 
 	Graph<Node,Edge> graph;
+	Adjacency<Node,Edge> adjacency;
 	
 	Node resource;
 	
@@ -34,9 +28,6 @@ public class PathAlgorithms {
 		this.graph = graph;
 		this.resource = resource;
 		
-		this.settledNodes = new HashSet<>();
-		this.unSettledNodes = new HashSet<>();
-
 		this.predecessors = new HashMap<>();
 
 	}
@@ -44,112 +35,26 @@ public class PathAlgorithms {
 	@LogMethod(level=LogLevel.DEBUG)
 	Map<Node,Integer> computeShortestPath() {
 
-		Map<Node,Integer> distance = new HashMap<>();
+		ShortestPaths<Node,Edge> paths = ShortestPaths.unweighted(getAdjacency(), resource);
 
-		for(Node node : graph.vertexSet() ) {
-			distance.put(node,  Integer.MAX_VALUE);
-		}
-		
-		unSettledNodes.add(resource); 
+		Map<Node,Integer> distance = paths.getDistanceMap();
 		distance.put(resource,  0);
 
-		while (!unSettledNodes.isEmpty() ) {
-			Node pivot = getNodeWithShortestDistance(distance, unSettledNodes);
-
-			unSettledNodes.remove(pivot); 
-			settledNodes.add(pivot); 
-
-			evaluatedNeighbors(distance, pivot);
-		}
+		predecessors = paths.getPredecessorMap();
 
 		return distance;
 
 	}
 
-	@LogMethod(level=LogLevel.DEBUG)
-	private void evaluatedNeighbors(Map<Node,Integer> distance, Node pivot) {
-		Set<Node> neighbours = CoreAPIGraph.getOutboundNeighbours(graph,pivot);
-		neighbours.removeAll(settledNodes);
-
-		for(Node candidate : neighbours) {
-			int candidateDistance = distance.get(pivot) + getDistance(pivot, candidate);
-			if(!distance.containsKey(candidate) || (candidateDistance < distance.get(candidate)) ) {
-				distance.put(candidate, candidateDistance);
-				predecessors.put(candidate, pivot);
-				unSettledNodes.add(candidate);
-			}  
-
-		}
-	}
-
-	@LogMethod(level=LogLevel.DEBUG)
-	private Integer getDistance(Node pivot, Node neighbour) {
-		Set<Node> neighbours = CoreAPIGraph.getOutboundNeighbours(graph,pivot);
-		if(neighbours.contains(neighbour))
-			return 1;
-		else
-			return Integer.MAX_VALUE;
-	}
-
-	@LogMethod(level=LogLevel.DEBUG)
-	private Node getNodeWithShortestDistance(Map<Node,Integer> distance, Set<Node> nodes) {
-		Node res = null;
-		for (Node node : nodes) {
-			if (res == null) {
-				res = node;
-			} else if (distance.get(node) < distance.get(res)) {
-				res = node;
-			}
-		}
-		return res;
-	}
-
 
 	@LogMethod(level=LogLevel.DEBUG)
 	Map<Node,Integer> computeLongestPath() {
-		return computeLongestPath(resource, new HashSet<>());
+		return LongestPaths.from(getAdjacency(), resource);
 	}
 
-	@LogMethod(level=LogLevel.DEBUG)
-	Map<Node,Integer> computeLongestPath(Node pivot, Set<Node> visited) {
-
-		Set<Node> subGraph = CoreAPIGraph.getSubGraphNodes(graph, pivot);
-
-		Map<Node,Integer> distance = new HashMap<>();
-
-		for(Node node : subGraph) distance.put(node, Integer.MIN_VALUE);
-		distance.put(pivot,0);
-
-		Set<Node> neighbours = CoreAPIGraph.getOutboundNeighbours(graph, pivot);
-
-		neighbours.retainAll(visited);
-
-		for(Node node : neighbours) {
-			distance.put(node, distance.get(node) + 1);
-		}
-
-		neighbours = CoreAPIGraph.getOutboundNeighbours(graph, pivot);
-		neighbours.removeAll(visited);
-
-		for(Node node : neighbours) {
-
-			visited.add(node);
-
-			Map<Node,Integer> longestPathsFromNeighbour = computeLongestPath(node, visited); 
-			for(Entry<Node, Integer> entry : longestPathsFromNeighbour.entrySet()) {
-
-				Node seen = entry.getKey();
-				Integer candidateLongest = entry.getValue();
-
-				if(!distance.containsKey(seen) || candidateLongest > distance.get(seen)) {
-					distance.put(seen, candidateLongest + 1);
-				}
-			}
-
-		}
-
-		return distance;
-
+	private Adjacency<Node,Edge> getAdjacency() {
+		if(adjacency==null) adjacency = Adjacency.of(graph);
+		return adjacency;
 	}
 
 
@@ -0,0 +1,186 @@
+package no.paneon.api.graph.complexity;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/*
+ * Single source shortest paths over an Adjacency.
+ *
+ * Unit edge weights are handled by breadth first search, other non-negative
+ * weights by Dijkstra with an indexed binary heap. Distances and predecessors
+ * are arrays indexed by vertex, unreachable vertices have distance Integer.MAX_VALUE.
+ */
+public class ShortestPaths<N,E> {
+
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	private final Adjacency<N,E> adjacency;
+	private final int[] distance;
+	private final int[] predecessor;
+
+	private ShortestPaths(Adjacency<N,E> adjacency) {
+		this.adjacency = adjacency;
+		this.distance = new int[adjacency.size()];
+		this.predecessor = new int[adjacency.size()];
+
+		Arrays.fill(distance, UNREACHABLE);
+		Arrays.fill(predecessor, -1);
+	}
+
+	public static <N,E> ShortestPaths<N,E> unweighted(Adjacency<N,E> adjacency, N source) {
+		ShortestPaths<N,E> res = new ShortestPaths<>(adjacency);
+		int start = adjacency.indexOf(source);
+		if(start>=0) res.breadthFirst(start);
+		return res;
+	}
+
+	public static <N,E> ShortestPaths<N,E> weighted(Adjacency<N,E> adjacency, N source, ToIntFunction<E> weight) {
+		ShortestPaths<N,E> res = new ShortestPaths<>(adjacency);
+		int start = adjacency.indexOf(source);
+		if(start>=0) res.dijkstra(start, weight);
+		return res;
+	}
+
+	public int[] getDistances() {
+		return distance;
+	}
+
+	public int getDistance(N node) {
+		int vertex = adjacency.indexOf(node);
+		return vertex>=0 ? distance[vertex] : UNREACHABLE;
+	}
+
+	public Map<N,Integer> getDistanceMap() {
+		return adjacency.toMap(distance);
+	}
+
+	public Map<N,N> getPredecessorMap() {
+		Map<N,N> res = new HashMap<>();
+		for(int v=0; v<predecessor.length; v++) {
+			if(predecessor[v]>=0) res.put(adjacency.getNode(v), adjacency.getNode(predecessor[v]));
+		}
+		return res;
+	}
+
+	private void breadthFirst(int start) {
+		int[] queue = new int[adjacency.size()];
+		int head=0;
+		int tail=0;
+
+		distance[start] = 0;
+		queue[tail++] = start;
+
+		while(head<tail) {
+			int v = queue[head++];
+			int next = distance[v] + 1;
+			for(int p=adjacency.first(v); p<adjacency.end(v); p++) {
+				int w = adjacency.target(p);
+				if(distance[w]==UNREACHABLE) {
+					distance[w] = next;
+					predecessor[w] = v;
+					queue[tail++] = w;
+				}
+			}
+		}
+	}
+
+	private void dijkstra(int start, ToIntFunction<E> weight) {
+		IndexedHeap heap = new IndexedHeap(adjacency.size(), distance);
+
+		distance[start] = 0;
+		heap.update(start);
+
+		while(!heap.isEmpty()) {
+			int v = heap.poll();
+			for(int p=adjacency.first(v); p<adjacency.end(v); p++) {
+				int w = adjacency.target(p);
+				int cost = weight.applyAsInt(adjacency.edge(p));
+				if(cost<0) throw new IllegalArgumentException("negative edge weight " + cost);
+
+				long candidate = (long)distance[v] + cost;
+				if(candidate<distance[w]) {
+					distance[w] = (int)Math.min(candidate, UNREACHABLE-1L);
+					predecessor[w] = v;
+					heap.update(w);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Binary min-heap of vertices ordered by the distance array, with decrease-key
+	 */
+	private static class IndexedHeap {
+
+		private final int[] heap;
+		private final int[] position;
+		private final int[] key;
+		private int size = 0;
+
+		IndexedHeap(int capacity, int[] key) {
+			this.heap = new int[capacity];
+			this.position = new int[capacity];
+			this.key = key;
+			Arrays.fill(position, -1);
+		}
+
+		boolean isEmpty() {
+			return size==0;
+		}
+
+		void update(int v) {
+			if(position[v]==-2) return;
+			if(position[v]==-1) {
+				heap[size] = v;
+				position[v] = size;
+				size++;
+			}
+			siftUp(position[v]);
+		}
+
+		int poll() {
+			int res = heap[0];
+			size--;
+			position[res] = -2;
+			if(size>0) {
+				heap[0] = heap[size];
+				position[heap[0]] = 0;
+				siftDown(0);
+			}
+			return res;
+		}
+
+		private void siftUp(int i) {
+			int v = heap[i];
+			while(i>0) {
+				int parent = (i-1)/2;
+				if(key[heap[parent]]<=key[v]) break;
+				move(heap[parent], i);
+				i = parent;
+			}
+			move(v, i);
+		}
+
+		private void siftDown(int i) {
+			int v = heap[i];
+			while(true) {
+				int child = 2*i+1;
+				if(child>=size) break;
+				if(child+1<size && key[heap[child+1]]<key[heap[child]]) child++;
+				if(key[heap[child]]>=key[v]) break;
+				move(heap[child], i);
+				i = child;
+			}
+			move(v, i);
+		}
+
+		private void move(int v, int i) {
+			heap[i] = v;
+			position[v] = i;
+		}
+
+	}
+
+}
@@ -0,0 +1,160 @@
+package no.paneon.api.graph.complexity;
+
+import java.util.Arrays;
+
+/*
+ * Strongly connected components of an Adjacency (Tarjan, iterative).
+ *
+ * Components are numbered in the order they are completed, i.e. in reverse topological
+ * order of the condensation: every edge between components goes from a higher to a lower number.
+ * Vertices not reached from the start vertices have component -1.
+ */
+public class StronglyConnectedComponents {
+
+	private final int[] component;
+	private final int count;
+
+	private final int[] offsets;
+	private final int[] members;
+
+	private StronglyConnectedComponents(int[] component, int count) {
+		this.component = component;
+		this.count = count;
+
+		this.offsets = new int[count+1];
+		for(int c : component) {
+			if(c>=0) offsets[c+1]++;
+		}
+		for(int c=0; c<count; c++) offsets[c+1] += offsets[c];
+
+		this.members = new int[offsets[count]];
+		int[] next = Arrays.copyOf(offsets, count);
+		for(int v=0; v<component.length; v++) {
+			if(component[v]>=0) members[next[component[v]]++] = v;
+		}
+	}
+
+	public static StronglyConnectedComponents of(Adjacency<?,?> adjacency) {
+		int[] all = new int[adjacency.size()];
+		for(int v=0; v<all.length; v++) all[v] = v;
+		return of(adjacency, all);
+	}
+
+	/*
+	 * Components of the part of the graph reachable from the start vertices
+	 */
+	public static StronglyConnectedComponents of(Adjacency<?,?> adjacency, int... start) {
+		return new Tarjan(adjacency).run(start);
+	}
+
+	public int getComponentCount() {
+		return count;
+	}
+
+	public int getComponent(int vertex) {
+		return component[vertex];
+	}
+
+	public int[] getComponents() {
+		return component;
+	}
+
+	public int getSize(int component) {
+		return offsets[component+1] - offsets[component];
+	}
+
+	public int getMember(int component, int i) {
+		return members[offsets[component]+i];
+	}
+
+	private static class Tarjan {
+
+		private final Adjacency<?,?> adjacency;
+
+		private final int[] index;
+		private final int[] low;
+		private final int[] position;
+		private final boolean[] onStack;
+		private final int[] stack;
+		private final int[] calls;
+		private final int[] component;
+
+		private int counter = 0;
+		private int count = 0;
+
+		Tarjan(Adjacency<?,?> adjacency) {
+			int n = adjacency.size();
+
+			this.adjacency = adjacency;
+			this.index = new int[n];
+			this.low = new int[n];
+			this.position = new int[n];
+			this.onStack = new boolean[n];
+			this.stack = new int[n];
+			this.calls = new int[n];
+			this.component = new int[n];
+
+			Arrays.fill(index, -1);
+			Arrays.fill(component, -1);
+		}
+
+		StronglyConnectedComponents run(int[] start) {
+			for(int v : start) {
+				if(v>=0 && index[v]<0) connect(v);
+			}
+			return new StronglyConnectedComponents(component, count);
+		}
+
+		private void connect(int root) {
+			int sp = 0;
+			int depth = 0;
+
+			sp = visit(root, sp);
+			calls[depth++] = root;
+
+			while(depth>0) {
+				int v = calls[depth-1];
+
+				if(position[v]<adjacency.end(v)) {
+					int w = adjacency.target(position[v]++);
+					if(index[w]<0) {
+						sp = visit(w, sp);
+						calls[depth++] = w;
+					} else if(onStack[w]) {
+						low[v] = Math.min(low[v], index[w]);
+					}
+					continue;
+				}
+
+				depth--;
+
+				if(low[v]==index[v]) {
+					int w;
+					do {
+						w = stack[--sp];
+						onStack[w] = false;
+						component[w] = count;
+					} while(w!=v);
+					count++;
+				}
+
+				if(depth>0) {
+					int u = calls[depth-1];
+					low[u] = Math.min(low[u], low[v]);
+				}
+			}
+		}
+
+		private int visit(int v, int sp) {
+			index[v] = counter;
+			low[v] = counter;
+			counter++;
+			position[v] = adjacency.first(v);
+			stack[sp] = v;
+			onStack[v] = true;
+			return sp+1;
+		}
+
+	}
+
+}
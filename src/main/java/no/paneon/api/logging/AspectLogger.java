@@ -1,13 +1,16 @@
 package no.paneon.api.logging;
 
-import java.lang.annotation.Annotation;
+import java.io.IOException;
+import java.io.Writer;
 import java.lang.reflect.Method;
-import java.util.Arrays;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -15,11 +18,20 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.Level;
 
+/*
+ * Logging of the methods annotated with @LogMethod, active when the global debug level is set.
+ *
+ * The level and logger are resolved once per join point. Arguments and results are only rendered
+ * when the logger is enabled for the level, and JSON values only up to the line size.
+ * -Dapicore.aspectLogging=false turns the aspect off. To leave out the accessors without arguments (get*, is*)
+ * when weaving, use logging/aop-without-accessors.xml instead of declaring this aspect, see ScopedAspectLogger.
+ * With MethodMetrics enabled the calls are also counted and timed, see MethodMetrics.
+ */
 @Aspect
 public class AspectLogger {
 
 	static final Logger LOG = LogManager.getLogger(AspectLogger.class);
-	
+
 	public enum LogLevel {
 	    OFF(Level.OFF),
 	    INFO(Level.INFO),
@@ -29,207 +41,273 @@ public class AspectLogger {
 	    WARN(Level.WARN),
 	    ALL(Level.ALL),
 	    TRACE(Level.TRACE);
-		
+
 		public final Level level;
-		
+
 		LogLevel(Level level) {
 			this.level = level;
 		}
-		
+
 	}
-	
+
 	public static final Level VERBOSE = Level.forName("VERBOSE", 0);
 	public static final Level ALWAYS  = Level.forName("ALWAYS", 1);
 
 	public static final Level INFO = Level.forName("INFO", Level.INFO.intLevel());
 
 	private static final int LINESIZE = 120;
-	
-	private static Level globalLevel = AspectLogger.VERBOSE;
-	
-	
-	public static void setGlobalDebugLevel(Level level) {		
+
+	private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("apicore.aspectLogging"));
+
+	private static volatile Level globalLevel = AspectLogger.VERBOSE;
+
+	private static final Map<JoinPoint.StaticPart,Target> targets = new ConcurrentHashMap<>();
+
+	public static void setGlobalDebugLevel(Level level) {
 		globalLevel = level;
 	}
-	
-    @Around("execution(* *(..)) && @annotation(LogMethod)")
+
+	@Pointcut("execution(* *(..)) && @annotation(LogMethod)")
+	public void logMethod() {
+	}
+
+	@Pointcut("execution(* get*()) || execution(boolean is*())")
+	public void accessor() {
+	}
+
+	@Pointcut("if()")
+	public static boolean active() {
+		return ENABLED && (activeLogging() || MethodMetrics.isEnabled());
+	}
+
+    @Around("logMethod() && active()")
     public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+    	return proceed(joinPoint);
+    }
 
-    	Level level = getLevel(joinPoint);
-    	if(activeLogging(level)) {
-    		
-	    	String args = getArgumentsAsString(joinPoint);
-
-	    	Logger currentLogger = getActiveLogger(joinPoint);   
-	    		    	
-	    	String logSource = joinPoint.getSignature().getDeclaringTypeName();
-	    	
-	    	long before = logBefore(joinPoint, level, args, currentLogger, logSource);
-	    	
-	        Object result = joinPoint.proceed();
-        
-	        logAfter(joinPoint, level, before, result, args, currentLogger, logSource);
-	        
-	        return result;
-		       
-        } else {
-    	
-        	return joinPoint.proceed();
-        	
-        }
+    static Object proceed(ProceedingJoinPoint joinPoint) throws Throwable {
+
+    	Target target = targets.computeIfAbsent(joinPoint.getStaticPart(), AspectLogger::getTarget);
+
+    	boolean metrics = MethodMetrics.isEnabled();
+
+    	if(!activeLogging() || target.level==Level.OFF || !target.logger.isEnabled(target.level)) {
+    		return metrics ? measure(joinPoint, target) : joinPoint.proceed();
+    	}
+
+    	String args = getArgumentsAsString(joinPoint);
+
+    	long before = logBefore(target, args);
+
+    	long allocated = metrics ? MethodMetrics.getAllocatedBytes() : -1;
+
+        Object result = joinPoint.proceed();
+
+        long time = System.nanoTime() - before;
+
+        if(metrics) MethodMetrics.record(target.key, time, allocatedSince(allocated));
+
+        logAfter(target, time, result, args);
+
+        return result;
     }
 
-	private void logAfter(ProceedingJoinPoint joinPoint, Level level, long before, Object result, String args, Logger currentLogger, String logSource) {
-        if(level!=Level.OFF) {
-        	
-	        long after = System.currentTimeMillis();
-	        long time = (after - before);
-
-    		String res = getResultAsString(result);
-	        	
-	        String msg = "";
-	    	
-	    	if(time>0) {		    	
-		    	msg = " <-- "
-		    			+ joinPoint.getSignature().getName() 
-		    			+ " (" + time + ")"
-		    			+ (!args.isEmpty() ? " :: args = " + args : "");
-		    	
-		        logging(currentLogger, level, msg, logSource);
-	    	}
-	    	
-	    	msg = " <-- "
-	    			+ joinPoint.getSignature().getName() 
-	    			+ " (" + time + ")"
-	    			+ (!res.isEmpty() ? " :: res = " + res : "");
+    private static Object measure(ProceedingJoinPoint joinPoint, Target target) throws Throwable {
+    	long allocated = MethodMetrics.getAllocatedBytes();
+    	long before = System.nanoTime();
+    	try {
+    		return joinPoint.proceed();
+    	} finally {
+    		MethodMetrics.record(target.key, System.nanoTime() - before, allocatedSince(allocated));
+    	}
+    }
 
-	        logging(currentLogger, level, msg, logSource);
-        }		
-	}
+    private static long allocatedSince(long allocated) {
+    	return allocated>=0 ? MethodMetrics.getAllocatedBytes() - allocated : -1;
+    }
+
+    /*
+     * The level, logger, name and metrics key of an annotated method
+     */
+    private static class Target {
 
-	private long logBefore(ProceedingJoinPoint joinPoint, Level level, String args, Logger activeLogger, String logSource) {
-		
-        long before = System.currentTimeMillis();
-        
-    	if(level!=Level.OFF) { 
-
-    		String msg =  " --> " 
-    					  + joinPoint.getSignature().getName()
-	    				  + (!args.isEmpty() ? " :: args = " + args : "");
-		
-	        logging(activeLogger, level, msg, logSource);
-	    	
+    	final Level level;
+    	final Logger logger;
+    	final String name;
+    	final String key;
+
+    	Target(Level level, Logger logger, String name, String key) {
+    		this.level = level;
+    		this.logger = logger;
+    		this.name = name;
+    		this.key = key;
     	}
-    	return before;
-		
-	}
 
-	private Logger getActiveLogger(ProceedingJoinPoint joinPoint) {
-		Logger activeLogger = null;
-		
+    }
+
+	private static Target getTarget(JoinPoint.StaticPart joinPoint) {
         MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
         Class<?> clazz = methodSignature.getDeclaringType();
-        
-        if(LogManager.getLogger(clazz)!=null) activeLogger = LogManager.getLogger(clazz);
-                
-		return activeLogger;
+		String name = methodSignature.getName();
+		return new Target(getLevel(methodSignature), LogManager.getLogger(clazz), name, clazz.getSimpleName() + "." + name);
 	}
 
-	private Level getLevel(ProceedingJoinPoint joinPoint) {
+	private static Level getLevel(MethodSignature methodSignature) {
 		Level res = Level.OFF;
 
 		try {
-	        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
-	        Class<?> clazz = methodSignature.getDeclaringType();
-	        Method method = clazz.getDeclaredMethod(methodSignature.getName(), methodSignature.getParameterTypes());
-	    	LogMethod argumentAnnotation;
-			Annotation[] annotations = method.getAnnotations();
-			
-	    	if(annotations!=null ) {
-		        for (Annotation ann : annotations) {
-		        	if(ann instanceof LogMethod) {
-		                argumentAnnotation = (LogMethod) ann;
-		                res=argumentAnnotation.level().level;
-		            }
-		        }
-	        }	
+	        Method method = methodSignature.getMethod();
+	        LogMethod annotation = method!=null ? method.getAnnotation(LogMethod.class) : null;
+	        if(annotation!=null) res = annotation.level().level;
 		} catch(Exception e) {
 			LOG.log(Level.ERROR, "getLevel exception: {}", e.getLocalizedMessage());
 			res = Level.OFF;
 		}
-		
+
 		return res;
 	}
 
-	private String getResultAsString(Object result) {
+	private static void logAfter(Target target, long nanos, Object result, String args) {
+        long time = nanos / 1000000;
+
+		String res = getResultAsString(result);
+
+        String msg = "";
+
+    	if(time>0) {
+	    	msg = " <-- "
+	    			+ target.name
+	    			+ " (" + time + ")"
+	    			+ (!args.isEmpty() ? " :: args = " + args : "");
+
+	        log(target.logger, target.level, msg);
+    	}
+
+    	msg = " <-- "
+    			+ target.name
+    			+ " (" + time + ")"
+    			+ (!res.isEmpty() ? " :: res = " + res : "");
+
+        log(target.logger, target.level, msg);
+	}
+
+	private static long logBefore(Target target, String args) {
+
+		String msg =  " --> "
+					  + target.name
+    				  + (!args.isEmpty() ? " :: args = " + args : "");
+
+        log(target.logger, target.level, msg);
+
+    	return System.nanoTime();
+
+	}
+
+	private static String getResultAsString(Object result) {
 		String res="null";
-        
+
 		if(result!=null) {
-	        if(result instanceof JSONObject) {
-	        	JSONObject r = (JSONObject) result;
-	        	res = r.toString();
-	        } else if(result instanceof JSONArray) {
-	        	JSONArray a = (JSONArray) result;
-	        	res = a.toString();
-	        } else {
-	        	res = result.toString();
-	        }
+			res = render(result);
 			if(res.length()>LINESIZE) res = res.substring(0,LINESIZE) + " ...";
-        } 
-        
+        }
+
 		return res;
 	}
 
-	private String getArgumentsAsString(ProceedingJoinPoint joinPoint) {
-		String res="";
-    	if(joinPoint.getArgs()!=null) {
-     	   res = Arrays.asList(joinPoint.getArgs()).stream()
-     			   .map(obj -> {
-     				   String arg = (obj!=null) ? obj.toString() : "null"; 
-     				   if(arg.length()>LINESIZE) arg = arg.substring(0,LINESIZE) + "...";
-     				   return arg;
-     				   })
-     			   .collect(Collectors.joining(", "));
-     	} else {
-     		res="(no args)";
-     	}
-		return res;
+	private static String getArgumentsAsString(ProceedingJoinPoint joinPoint) {
+		Object[] args = joinPoint.getArgs();
+		if(args==null) return "(no args)";
+
+		StringBuilder res = new StringBuilder();
+		for(Object obj : args) {
+			String arg = (obj!=null) ? render(obj) : "null";
+			if(arg.length()>LINESIZE) arg = arg.substring(0,LINESIZE) + "...";
+			if(res.length()>0) res.append(", ");
+			res.append(arg);
+		}
+		return res.toString();
 	}
-   
 
-	private void logging(Logger logger, Level level, String msg, String logSource) {
-				
-    	if(logger==null) {
-	    	msg = logSource + "  - " + msg;
-    		log(LOG, level, msg);
-    	}
-    	else {
-    		log(logger, level, msg);	
-    	}
- 	
+	/*
+	 * String value of the object, JSON values are only written up to one character more than the line size
+	 */
+	private static String render(Object obj) {
+		if(!(obj instanceof JSONObject) && !(obj instanceof JSONArray)) return obj.toString();
+
+		BoundedWriter writer = new BoundedWriter(LINESIZE+1);
+		try {
+			if(obj instanceof JSONObject) {
+				((JSONObject) obj).write(writer);
+			} else {
+				((JSONArray) obj).write(writer);
+			}
+		} catch(RuntimeException e) {
+			if(!writer.isFull()) throw e;
+		}
+		return writer.toString();
 	}
 
-	private void log(Logger logger, Level level, String msg) {
-				
-		if((level.equals(AspectLogger.VERBOSE) 
+	private static class BoundedWriter extends Writer {
+
+		private final StringBuilder buffer = new StringBuilder();
+		private final int limit;
+
+		BoundedWriter(int limit) {
+			this.limit = limit;
+		}
+
+		boolean isFull() {
+			return buffer.length()>=limit;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			if(isFull()) throw new IOException("limit reached");
+			buffer.append(cbuf, off, Math.min(len, limit-buffer.length()));
+		}
+
+		@Override
+		public void write(String str, int off, int len) throws IOException {
+			if(isFull()) throw new IOException("limit reached");
+			buffer.append(str, off, off + Math.min(len, limit-buffer.length()));
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public String toString() {
+			return buffer.toString();
+		}
+
+	}
+
+	private static void log(Logger logger, Level level, String msg) {
+
+		if((level.equals(AspectLogger.VERBOSE)
 				|| level.equals(org.apache.logging.log4j.Level.DEBUG))
 			&& (msg.length()>LINESIZE)) {
-			
+
 			msg = msg.substring(0,LINESIZE) + "...";
 		}
-					
-		logger.log(level, msg);		
-		
+
+		logger.log(level, msg);
+
 	}
-	
-	private boolean activeLogging(Level level) {
-				
+
+	private static boolean activeLogging() {
+
 		boolean res = (globalLevel != AspectLogger.VERBOSE) && (globalLevel != Level.OFF);
-				
+
 		// could also include filtering based on globalLevel: (level.intLevel()<=globalLevel.intLevel());
-		
+
 		return res;
-		
+
 	}
-	
-}
\ No newline at end of file
+
+}
@@ -0,0 +1,208 @@
+package no.paneon.api.logging;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/*
+ * Call counts, latency histograms and allocation estimates per @LogMethod method, recorded by AspectLogger
+ * when metrics are enabled (setEnabled or -Dapicore.aspectMetrics=true).
+ *
+ * Latencies are inclusive of nested calls and kept in power of two nanosecond buckets, i.e. percentiles
+ * are reported as the upper bound of the bucket. Allocated bytes are per thread, also inclusive,
+ * and only recorded where the JVM supports it.
+ *
+ * With -Dapicore.aspectMetrics.output=<file> the metrics are written at exit, in Prometheus format
+ * if the file name ends with .prom and as JSON otherwise.
+ */
+public class MethodMetrics {
+
+	static final Logger LOG = LogManager.getLogger(MethodMetrics.class);
+
+	static final int BUCKETS = 64;
+
+	private static final double[] PERCENTILES = { 0.5, 0.9, 0.99 };
+
+	private static volatile boolean enabled = Boolean.getBoolean("apicore.aspectMetrics");
+
+	private static final Map<String,Stats> metrics = new ConcurrentHashMap<>();
+
+	private static final com.sun.management.ThreadMXBean threads = getThreadBean();
+
+	static {
+		String output = System.getProperty("apicore.aspectMetrics.output");
+		if(output!=null && !output.isEmpty()) {
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> write(output)));
+		}
+	}
+
+	private MethodMetrics() {
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean value) {
+		enabled = value;
+	}
+
+	public static void reset() {
+		metrics.clear();
+	}
+
+	/*
+	 * Bytes allocated by the current thread so far, -1 if not available
+	 */
+	public static long getAllocatedBytes() {
+		return threads!=null ? threads.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+	}
+
+	public static void record(String method, long nanos, long allocated) {
+		metrics.computeIfAbsent(method, Stats::new).add(nanos, allocated);
+	}
+
+	public static long getCount(String method) {
+		Stats stats = metrics.get(method);
+		return stats!=null ? stats.count.sum() : 0;
+	}
+
+	/*
+	 * One entry per method, sorted by total time
+	 */
+	public static JSONArray toJSON() {
+		JSONArray res = new JSONArray();
+		sorted().forEach(stats -> res.put(stats.toJSON()));
+		return res;
+	}
+
+	/*
+	 * Prometheus text exposition format, the latencies as a histogram in seconds
+	 */
+	public static String toPrometheus() {
+		StringBuilder res = new StringBuilder();
+
+		res.append("# TYPE apicore_method_calls_total counter\n");
+		sorted().forEach(stats -> res.append("apicore_method_calls_total{method=\"").append(stats.method).append("\"} ").append(stats.count.sum()).append('\n'));
+
+		res.append("# TYPE apicore_method_allocated_bytes_total counter\n");
+		sorted().forEach(stats -> res.append("apicore_method_allocated_bytes_total{method=\"").append(stats.method).append("\"} ").append(stats.allocated.sum()).append('\n'));
+
+		res.append("# TYPE apicore_method_duration_seconds histogram\n");
+		sorted().forEach(stats -> stats.appendHistogram(res));
+
+		return res.toString();
+	}
+
+	public static void write(String file) {
+		String content = file.endsWith(".prom") ? toPrometheus() : toJSON().toString(2);
+		try {
+			Files.write(Paths.get(file), content.getBytes(StandardCharsets.UTF_8));
+		} catch(IOException e) {
+			LOG.error("write: unable to write metrics to {}: {}", file, e.getLocalizedMessage());
+		}
+	}
+
+	private static List<Stats> sorted() {
+		List<Stats> res = new ArrayList<>(metrics.values());
+		res.sort(Comparator.comparingLong((Stats stats) -> stats.total.sum()).reversed().thenComparing(stats -> stats.method));
+		return res;
+	}
+
+	static int bucketOf(long nanos) {
+		return nanos<=0 ? 0 : Math.min(BUCKETS-1, 64 - Long.numberOfLeadingZeros(nanos));
+	}
+
+	/*
+	 * Upper bound (inclusive) of the bucket in nanoseconds
+	 */
+	static long upperBound(int bucket) {
+		return bucket>=BUCKETS-1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+	}
+
+	private static com.sun.management.ThreadMXBean getThreadBean() {
+		try {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if(bean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean res = (com.sun.management.ThreadMXBean) bean;
+				if(res.isThreadAllocatedMemorySupported() && res.isThreadAllocatedMemoryEnabled()) return res;
+			}
+		} catch(Throwable e) {
+			LOG.debug("getThreadBean: allocation not available: {}", e.getLocalizedMessage());
+		}
+		return null;
+	}
+
+	private static class Stats {
+
+		final String method;
+		final LongAdder count = new LongAdder();
+		final LongAdder total = new LongAdder();
+		final LongAdder allocated = new LongAdder();
+		final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+		Stats(String method) {
+			this.method = method;
+		}
+
+		void add(long nanos, long bytes) {
+			count.increment();
+			total.add(nanos);
+			if(bytes>0) allocated.add(bytes);
+			buckets.incrementAndGet(bucketOf(nanos));
+		}
+
+		long percentile(double fraction, long calls) {
+			long rank = (long) Math.ceil(fraction*calls);
+			long seen = 0;
+			for(int b=0; b<BUCKETS; b++) {
+				seen += buckets.get(b);
+				if(seen>=rank && seen>0) return upperBound(b);
+			}
+			return 0;
+		}
+
+		JSONObject toJSON() {
+			long calls = count.sum();
+			JSONObject res = new JSONObject();
+			res.put("method", method);
+			res.put("count", calls);
+			res.put("totalNanos", total.sum());
+			res.put("meanNanos", calls>0 ? total.sum()/calls : 0);
+			for(double fraction : PERCENTILES) {
+				res.put("p" + Math.round(fraction*100) + "Nanos", percentile(fraction, calls));
+			}
+			res.put("allocatedBytes", allocated.sum());
+			return res;
+		}
+
+		void appendHistogram(StringBuilder res) {
+			long cumulative = 0;
+			for(int b=0; b<BUCKETS; b++) {
+				cumulative += buckets.get(b);
+				if(buckets.get(b)==0 || b==BUCKETS-1) continue;
+				res.append("apicore_method_duration_seconds_bucket{method=\"").append(method).append("\",le=\"")
+					.append(upperBound(b)/1e9).append("\"} ").append(cumulative).append('\n');
+			}
+			res.append("apicore_method_duration_seconds_bucket{method=\"").append(method).append("\",le=\"+Inf\"} ").append(cumulative).append('\n');
+			res.append("apicore_method_duration_seconds_sum{method=\"").append(method).append("\"} ").append(total.sum()/1e9).append('\n');
+			res.append("apicore_method_duration_seconds_count{method=\"").append(method).append("\"} ").append(count.sum()).append('\n');
+		}
+
+	}
+
+}
@@ -0,0 +1,221 @@
+package no.paneon.api.logging;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jgrapht.Graph;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import no.paneon.api.utils.Out;
+
+/*
+ * Timing of the phases of a run (reading the specification, building the graph, complexity analysis ...),
+ * enabled by setEnabled or -Dapicore.phaseTracing=true.
+ *
+ * Spans nest per thread, a phase is identified by its path of span names (e.g. CoreAPIGraph/generateGraph).
+ * Per phase the summary has the number of spans, wall and CPU time, bytes allocated by the thread
+ * and the number of nodes and edges of the graph of the last span, if set.
+ * With -Dapicore.phaseTracing.output=<file> the summary is written as JSON at exit.
+ */
+public class PhaseTracer {
+
+	static final Logger LOG = LogManager.getLogger(PhaseTracer.class);
+
+	private static volatile boolean enabled = Boolean.getBoolean("apicore.phaseTracing");
+
+	private static final Map<String,Phase> phases = new ConcurrentHashMap<>();
+
+	private static final ThreadLocal<Span> current = new ThreadLocal<>();
+
+	private static final AtomicLong sequence = new AtomicLong();
+
+	private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+	private static final Span NONE = new Span(null, null);
+
+	static {
+		String output = System.getProperty("apicore.phaseTracing.output");
+		if(output!=null && !output.isEmpty()) {
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> write(output)));
+		}
+	}
+
+	private PhaseTracer() {
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean value) {
+		enabled = value;
+	}
+
+	public static void reset() {
+		phases.clear();
+	}
+
+	/*
+	 * Start a span nested in the current span of the thread, to be closed by try-with-resources
+	 */
+	public static Span start(String name) {
+		if(!enabled) return NONE;
+		return new Span(name, current.get());
+	}
+
+	public static void run(String name, Runnable phase) {
+		Span span = start(name);
+		try {
+			phase.run();
+		} finally {
+			span.close();
+		}
+	}
+
+	public static <T> T call(String name, Supplier<T> phase) {
+		Span span = start(name);
+		try {
+			return phase.get();
+		} finally {
+			span.close();
+		}
+	}
+
+	/*
+	 * One entry per phase, in the order the phases were first started
+	 */
+	public static JSONObject getSummary() {
+		List<Phase> sorted = new ArrayList<>(phases.values());
+		sorted.sort(Comparator.comparingLong(phase -> phase.first));
+
+		JSONArray res = new JSONArray();
+		sorted.forEach(phase -> res.put(phase.toJSON()));
+		return new JSONObject().put("phases", res);
+	}
+
+	public static void write(String file) {
+		try {
+			Files.write(Paths.get(file), getSummary().toString(2).getBytes(StandardCharsets.UTF_8));
+		} catch(IOException e) {
+			LOG.error("write: unable to write phase summary to {}: {}", file, e.getLocalizedMessage());
+		}
+	}
+
+	private static long cpuTime() {
+		return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+	}
+
+	public static class Span implements AutoCloseable {
+
+		private final String path;
+		private final Span parent;
+		private final long order;
+		private final long wall;
+		private final long cpu;
+		private final long allocated;
+
+		private Graph<?,?> graph;
+		private boolean closed;
+
+		private Span(String name, Span parent) {
+			this.parent = parent;
+			if(name==null) {
+				this.path = null;
+				this.order = this.wall = this.cpu = this.allocated = 0;
+			} else {
+				this.path = parent!=null ? parent.path + "/" + name : name;
+				this.order = sequence.incrementAndGet();
+				current.set(this);
+				this.allocated = MethodMetrics.getAllocatedBytes();
+				this.cpu = cpuTime();
+				this.wall = System.nanoTime();
+			}
+		}
+
+		/*
+		 * The graph to report the number of nodes and edges for when the span is closed
+		 */
+		public Span setGraph(Graph<?,?> graph) {
+			this.graph = graph;
+			return this;
+		}
+
+		@Override
+		public void close() {
+			if(path==null || closed) return;
+			closed = true;
+
+			long wallTime = System.nanoTime() - wall;
+			long cpuTime = cpu>=0 ? cpuTime() - cpu : -1;
+			long bytes = allocated>=0 ? MethodMetrics.getAllocatedBytes() - allocated : -1;
+
+			if(parent!=null) current.set(parent); else current.remove();
+
+			Phase phase = phases.computeIfAbsent(path, p -> new Phase(p, order));
+			phase.add(wallTime, cpuTime, bytes, graph);
+
+			Out.debug("... phase {}: wall={} ms cpu={} ms", path, wallTime/1000000, cpuTime/1000000);
+		}
+
+	}
+
+	private static class Phase {
+
+		final String path;
+		final long first;
+		final LongAdder count = new LongAdder();
+		final LongAdder wall = new LongAdder();
+		final LongAdder cpu = new LongAdder();
+		final LongAdder allocated = new LongAdder();
+
+		volatile int nodes = -1;
+		volatile int edges = -1;
+
+		Phase(String path, long first) {
+			this.path = path;
+			this.first = first;
+		}
+
+		void add(long wallTime, long cpuTime, long bytes, Graph<?,?> graph) {
+			count.increment();
+			wall.add(wallTime);
+			if(cpuTime>0) cpu.add(cpuTime);
+			if(bytes>0) allocated.add(bytes);
+			if(graph!=null) {
+				nodes = graph.vertexSet().size();
+				edges = graph.edgeSet().size();
+			}
+		}
+
+		JSONObject toJSON() {
+			JSONObject res = new JSONObject();
+			res.put("phase", path);
+			res.put("count", count.sum());
+			res.put("wallNanos", wall.sum());
+			res.put("cpuNanos", cpu.sum());
+			res.put("allocatedBytes", allocated.sum());
+			if(nodes>=0) {
+				res.put("nodes", nodes);
+				res.put("edges", edges);
+			}
+			return res;
+		}
+
+	}
+
+}
@@ -0,0 +1,27 @@
+package no.paneon.api.logging;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+
+/*
+ * The logging of AspectLogger limited to the methods in scope(), chosen when weaving.
+ *
+ * The aspect is abstract and only woven when a concrete aspect is declared for it in aop.xml,
+ * as in logging/aop-without-accessors.xml, which leaves out the accessors without arguments:
+ *   -Dorg.aspectj.weaver.loadtime.configuration=logging/aop-without-accessors.xml
+ * Declare either this one or AspectLogger, not both.
+ */
+@Aspect
+public abstract class ScopedAspectLogger {
+
+	@Pointcut
+	public abstract void scope();
+
+    @Around("no.paneon.api.logging.AspectLogger.logMethod() && no.paneon.api.logging.AspectLogger.active() && scope()")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+    	return AspectLogger.proceed(joinPoint);
+    }
+
+}
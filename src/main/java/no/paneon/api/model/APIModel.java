@@ -15,7 +15,6 @@ import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
@@ -31,8 +30,10 @@ import org.json.JSONPointer;
 
 import no.paneon.api.utils.Config;
 import no.paneon.api.utils.Out;
+import no.paneon.api.utils.PatternRegistry;
 import no.paneon.api.utils.Utils;
 import no.paneon.api.logging.LogMethod;
+import no.paneon.api.logging.PhaseTracer;
 import no.paneon.api.logging.AspectLogger.LogLevel;
 
 import org.apache.logging.log4j.LogManager;
@@ -42,13 +43,10 @@ public class APIModel {
 
 	static final Logger LOG = LogManager.getLogger(APIModel.class);
 
-	private static JSONObject swagger;
 
 	static final Map<String,String> formatToType = new HashMap<>();
 	static final Map<String,String> typeMapping = new HashMap<>();
 
-	private static JSONObject resourceMapping;
-	private static JSONObject reverseMapping;
 
 	public static final List<String> ALL_OPS = Arrays.asList("GET", "POST", "DELETE", "PUT", "PATCH");
 
@@ -58,6 +56,7 @@ public class APIModel {
 	private static final String RESOURCE_MAPPING = "resourceMapping";
 	
 	private static final String FLATTEN_INHERITANCE = "expandInherited";
+	private static final String LAZY_EXTERNAL_REFERENCES = "lazyExternalReferences";
 	private static final String TITLE = "title";
 	private static final String FORMAT = "format";
 	private static final String TYPE = "type";
@@ -92,24 +91,49 @@ public class APIModel {
 	private static final String MAPPING = "mapping";
 
 	private static final String NEWLINE = "\n";
-	private static String swaggerSource;
+
+	private static final APIModelContext defaultContext = new APIModelContext();
+	private static final ThreadLocal<APIModelContext> boundContext = new ThreadLocal<>();
+
+	private final APIModelContext context = ctx();
+
+	static APIModelContext ctx() {
+		APIModelContext res = boundContext.get();
+		return res!=null ? res : defaultContext;
+	}
+
+	/*
+	 * The model state used by the static methods of the calling thread - 
+	 * either a context bound by APIModelContext.run() / call() or the shared default context
+	 */
+	public static APIModelContext getCurrentContext() {
+		return ctx();
+	}
+
+	public APIModelContext getContext() {
+		return context;
+	}
+
+	static APIModelContext bind(APIModelContext context) {
+		APIModelContext prev = boundContext.get();
+		if(context!=null) 
+			boundContext.set(context);
+		else
+			boundContext.remove();
+		return prev;
+	}
 	
-	private static Map<String, JSONObject> resourcePropertyMap = new HashMap<>();
 
-    private static boolean firstAPImessage=true;
 
-    private static Map<String,Counter> operationCounter = null;
     
-	private static Map<String,JSONObject> externalDefinitions = new HashMap<>();
-	private static Map<String,JSONObject> externals = new HashMap<>();
 
     public static String getSource() {
-    	return swaggerSource;
+    	return ctx().swaggerSource;
     }
     
 	private APIModel() {
-		resourceMapping = Config.getConfig(RESOURCE_MAPPING);
-		reverseMapping = generateReverseMapping(resourceMapping);
+		ctx().resourceMapping = Config.getConfig(RESOURCE_MAPPING);
+		ctx().reverseMapping = generateReverseMapping(ctx().resourceMapping);
 	}
 
 	public APIModel(JSONObject api) {
@@ -119,16 +143,16 @@ public class APIModel {
 
 	private APIModel(String source) {
 		this();
-		setSwagger(Utils.readJSONOrYaml(source));
-		swaggerSource=source;
+		setSwagger(PhaseTracer.call("readSpecification", () -> Utils.readJSONOrYaml(source)));
+		ctx().swaggerSource=source;
 	}
 
 	public APIModel(String source, InputStream is) {
 		this();
 		try {
 			APIModel.setSwaggerSource(source);
-			setSwagger(Utils.readJSONOrYaml(is));
-			swaggerSource=source;
+			setSwagger(PhaseTracer.call("readSpecification", () -> Utils.readJSONOrYaml(is)));
+			ctx().swaggerSource=source;
 
 		} catch(Exception ex) {
 			Out.println("... unable to read API specification from source '" + source + "'");
@@ -142,11 +166,10 @@ public class APIModel {
 	
 	public APIModel(String filename, File file) {
 		this();
-		try {
-			InputStream is = new FileInputStream(file);
+		try(InputStream is = new FileInputStream(file)) {
 			APIModel.setSwaggerSource(filename);
-			setSwagger(Utils.readJSONOrYaml(is));
-			swaggerSource=filename;
+			setSwagger(PhaseTracer.call("readSpecification", () -> Utils.readJSONOrYaml(is)));
+			ctx().swaggerSource=filename;
 
 		} catch(Exception ex) {
 			Out.println("... unable to read API specification from file '" + filename + "'");
@@ -159,19 +182,11 @@ public class APIModel {
 	}
 
 	public String toString() {
-		return swagger.toString(2);
+		return ctx().swagger.toString(2);
 	}
 
 	public static void clean() {
-		allDefinitions = new JSONObject();	
-		resourcePropertyMap = new HashMap<>();
-		swagger = null;
-		firstAPImessage=true;
-		operationCounter = null;
-		
-		externals = new HashMap<>();
-		externalDefinitions = new HashMap<>();
-
+		ctx().clean();
 	}
 	
 	@LogMethod(level=LogLevel.DEBUG)
@@ -179,20 +194,22 @@ public class APIModel {
 		
 		clean();
 		
-		swagger = api;
+		ctx().swagger = api;
 
-		LOG.debug("setSwagger:: keys={}", swagger.keySet());
+		LOG.debug("setSwagger:: keys={}", ctx().swagger.keySet());
 
-		rearrangeDefinitions(swagger);
+		PhaseTracer.run("rearrangeDefinitions", () -> rearrangeDefinitions(ctx().swagger));
 		
-		refactorEmbeddedTitles();
+		PhaseTracer.run("refactorEmbeddedTitles", () -> refactorEmbeddedTitles());
+		
+		ctx().typeClassification.clear();
 
 	}
 
 	private static void refactorEmbeddedTitles() {
 		LOG.debug("refactorEmbeddedTitles");
 
-		getAllDefinitions().forEach(APIModel::refactorEmbeddedTitles);
+		getLoadedDefinitions().forEach(APIModel::refactorEmbeddedTitles);
 		
 //		
 //		for(String type : getAllDefinitions() ) {
@@ -265,13 +282,13 @@ public class APIModel {
 
 	private static String addResource(String title, JSONObject obj) {
 		obj = new JSONObject(obj.toString());
-		JSONObject embedded = swagger.optJSONObject("embedded");
+		JSONObject embedded = ctx().swagger.optJSONObject("embedded");
 		if(embedded==null) {
-			swagger.put("embedded", new JSONObject());
-			embedded = swagger.optJSONObject("embedded");
+			ctx().swagger.put("embedded", new JSONObject());
+			embedded = ctx().swagger.optJSONObject("embedded");
 		}
 		embedded.put(title, obj); // SIMPLE
-		allDefinitions.put(title, obj);
+		ctx().allDefinitions.put(title, obj);
 		
 		return "#/embedded/" + title;
 		
@@ -281,67 +298,99 @@ public class APIModel {
 		
 		LOG.debug("rearrangeDefinitions:: keys={}", api.keySet());
 		
-		for(String type : getAllDefinitions() ) {
-			JSONObject definition = getDefinition(type);
-			
-			if(definition!=null && !definition.has(PROPERTIES)) {
-				if(definition.has(ALLOF)) {
-					JSONArray rewrittenAllOfs = new JSONArray();
+		getLoadedDefinitions().forEach(APIModel::rearrangeDefinition);
+	}
 
-					JSONArray allOfs = definition.optJSONArray(ALLOF);
-					allOfs.forEach(allOf -> {
-						if(allOf instanceof JSONObject) {
-							JSONObject obj = (JSONObject) allOf;
-							if(obj.has(REF)) {
-								rewrittenAllOfs.put(obj);
-							} else if(obj.has(PROPERTIES)) {
-								definition.put(PROPERTIES, obj.get(PROPERTIES));
-								if(obj.has(REQUIRED)) definition.put(REQUIRED, obj.get(REQUIRED));
-								if(obj.has(DESCRIPTION) && !definition.has(DESCRIPTION)) {
-									definition.put(DESCRIPTION, obj.get(DESCRIPTION));
-								}
-								if(obj.has(TYPE)) definition.put(TYPE, obj.get(TYPE));
-								
-								LOG.debug("rearrangeDefinitions:: rearrange type={} obj={}", type, definition.toString(2));
-							} else {
-								rewrittenAllOfs.put(obj);
+	private static void rearrangeDefinition(String type) {
+		JSONObject definition = getDefinition(type);
+		
+		if(definition!=null && !definition.has(PROPERTIES)) {
+			if(definition.has(ALLOF)) {
+				JSONArray rewrittenAllOfs = new JSONArray();
+
+				JSONArray allOfs = definition.optJSONArray(ALLOF);
+				allOfs.forEach(allOf -> {
+					if(allOf instanceof JSONObject) {
+						JSONObject obj = (JSONObject) allOf;
+						if(obj.has(REF)) {
+							rewrittenAllOfs.put(obj);
+						} else if(obj.has(PROPERTIES)) {
+							definition.put(PROPERTIES, obj.get(PROPERTIES));
+							if(obj.has(REQUIRED)) definition.put(REQUIRED, obj.get(REQUIRED));
+							if(obj.has(DESCRIPTION) && !definition.has(DESCRIPTION)) {
+								definition.put(DESCRIPTION, obj.get(DESCRIPTION));
 							}
+							if(obj.has(TYPE)) definition.put(TYPE, obj.get(TYPE));
+							
+							LOG.debug("rearrangeDefinitions:: rearrange type={} obj={}", type, definition.toString(2));
 						} else {
-							rewrittenAllOfs.put(allOf);
-							LOG.debug("rearrangeDefinitions:: unexpected array element for type={} element={}", type, allOf);
+							rewrittenAllOfs.put(obj);
 						}
-					});
-					
-					definition.put(ALLOF, rewrittenAllOfs);
-					
-					JSONObject newDef = getDefinition(type);
-					
-					LOG.debug("rearrangeDefinitions:: type={} old={} new={}", type, definition.keySet(), newDef.keySet());
-
-				}
+					} else {
+						rewrittenAllOfs.put(allOf);
+						LOG.debug("rearrangeDefinitions:: unexpected array element for type={} element={}", type, allOf);
+					}
+				});
+				
+				definition.put(ALLOF, rewrittenAllOfs);
+				
+				JSONObject newDef = getDefinition(type);
 				
+				LOG.debug("rearrangeDefinitions:: type={} old={} new={}", type, definition.keySet(), newDef.keySet());
+
 			}
-	
+			
+		}
+	}
+
+	/*
+	 * All definitions except, in lazy mode, the external references not yet resolved 
+	 */
+	private static List<String> getLoadedDefinitions() {
+		List<String> res = getAllDefinitions();
+		if(ctx().externalsDeferred) res.removeIf(APIModel::isDeferredDefinition);
+		return res;
+	}
+
+	private static boolean isDeferredDefinition(String type) {
+		JSONObject definition = getDefinitions().optJSONObject(type);
+		return definition!=null && definition.has(REF) && isExternalReference(definition.optString(REF)) 
+				&& !ctx().resolvedStubs.contains(type);
+	}
+
+	/*
+	 * Lazy mode: the setSwagger() rearrangements applied to definitions merged after loading
+	 */
+	private static void prepareDeferredDefinitions() {
+		Set<String> deferred = ctx().deferredTypes;
+		while(!deferred.isEmpty()) {
+			Iterator<String> iter = deferred.iterator();
+			String type = iter.next();
+			iter.remove();
+			
+			LOG.debug("prepareDeferredDefinitions: type={}", type);
+
+			rearrangeDefinition(type);
+			refactorEmbeddedTitles(type);
 		}
 	}
 
 	@LogMethod(level=LogLevel.DEBUG)
 	public static void setSwaggerSource(String filename) {
 		LOG.debug("setSwaggerSource: filename={}", filename);
-		swaggerSource = filename;
+		ctx().swaggerSource = filename;
 		
-		resourceMapping = Config.getConfig(RESOURCE_MAPPING);
-		reverseMapping = generateReverseMapping(resourceMapping);
+		ctx().resourceMapping = Config.getConfig(RESOURCE_MAPPING);
+		ctx().reverseMapping = generateReverseMapping(ctx().resourceMapping);
 		
 	}
 
 
-	static List<String> _getResources = null;
 	
 	@LogMethod(level=LogLevel.DEBUG)
 	public static List<String> getResources() {
 
-		if(_getResources!=null) return _getResources;
+		if(ctx().resources!=null) return ctx().resources;
 		
 		List<String> res = getCoreResources(); 
 			
@@ -379,7 +428,7 @@ public class APIModel {
 		
 		LOG.debug("getResources:: {}", res);
 
-		_getResources = res;
+		ctx().resources = res;
 		
 		return res;
 		
@@ -404,17 +453,77 @@ public class APIModel {
 	@LogMethod(level=LogLevel.DEBUG)
 	public static List<String> getCoreResources() {
 
-		List<String> res = getAllResponses()
-				.map(APIModel::getNormalResponses)
-				.flatMap(List::stream)
-				.map(APIModel::getResourceFromResponse)
-				.flatMap(List::stream)
-				.distinct()
-				// .map(APIModel::getMappedResource)
-				.collect(toList());
+		return getResourceIndex().getCoreResources();
 		
+	}
+
+	/*
+	 * The index of resources, paths and operations of the current model,
+	 * built in one traversal of the paths on first use after setSwagger()
+	 */
+	@LogMethod(level=LogLevel.DEBUG)
+	private static ResourceIndex getResourceIndex() {
+		APIModelContext model = ctx();
+		ResourceIndex res = model.resourceIndex;
+		if(res==null) {
+			synchronized(model) {
+				res = model.resourceIndex;
+				if(res==null) {
+					res = buildResourceIndex();
+					model.resourceIndex = res;
+				}
+			}
+		}
 		return res;
-		
+	}
+
+	private static ResourceIndex buildResourceIndex() {
+		ResourceIndex res = new ResourceIndex();
+
+		for(String path : getPaths()) {
+			JSONObject pathObj = getPathObjectByKey(path);
+
+			res.addPath(path, pathObj.keySet());
+
+			for(String op : pathObj.keySet()) {
+				JSONObject opObj = pathObj.optJSONObject(op);
+				if(opObj==null) continue;
+
+				JSONObject responses = hasResponses(opObj) ? getResponseEntity(opObj) : null;
+
+				Set<String> responseCodes = responses!=null ? responses.keySet() : new HashSet<>();
+
+				List<String> responseResources = getNormalResponses(responses).stream()
+						.map(APIModel::getResourceFromResponse)
+						.flatMap(List::stream)
+						// 2022-11-04 .map(APIModel::getMappedResource)
+						.collect(toList());
+
+				res.addOperation(path, op, responseCodes, responseResources, getRequestResources(opObj));
+			}
+		}
+
+		LOG.debug("buildResourceIndex: paths={}", getPaths().size());
+
+		return res;
+	}
+
+	/*
+	 * Resources of the request body, either requestBody (OAS3) or the body parameter (OAS2)
+	 */
+	private static List<String> getRequestResources(JSONObject opObj) {
+		JSONObject requestBody = opObj.optJSONObject(REQUESTBODY);
+		if(requestBody!=null) return getResourceFromResponse(requestBody);
+
+		JSONArray parameters = opObj.optJSONArray("parameters");
+		if(parameters!=null) {
+			for(int i=0; i<parameters.length(); i++) {
+				JSONObject parameter = parameters.optJSONObject(i);
+				if(parameter!=null && "body".equals(parameter.optString("in"))) return getResourceFromResponse(parameter);
+			}
+		}
+
+		return new LinkedList<>();
 	}
 
 	@LogMethod(level=LogLevel.DEBUG)
@@ -427,17 +536,6 @@ public class APIModel {
 				.collect(Collectors.toList());
 	}
 
-	@LogMethod(level=LogLevel.DEBUG)
-	private static Stream<JSONObject> getAllResponses() {
-		return getPaths().stream()
-				.map(APIModel::getPathObjectByKey)
-				.map(APIModel::getChildElements)
-				.flatMap(List::stream)
-				.filter(APIModel::hasResponses)
-				.map(APIModel::getResponseEntity);
-
-	}
-
 	@LogMethod(level=LogLevel.DEBUG)
 	private static JSONObject getResponseEntity(JSONObject obj) {
 		return obj.optJSONObject(RESPONSES);
@@ -449,6 +547,8 @@ public class APIModel {
 
 		if(obj.has(REF)) obj = APIModel.getDefinitionByReference(obj.optString(REF));
 
+		if(obj==null) return res;
+
 		JSONObject schema = getSchemaFromResponse(obj);
 
 		if(schema!=null) {
@@ -496,9 +596,7 @@ public class APIModel {
 	@LogMethod(level=LogLevel.DEBUG)
 	private static boolean includeSubclass(String resource) {
 		
-		List<String> excludePattern = Config.getSubClassesExcludeRegexp();
-
-		boolean exclude = excludePattern.stream().anyMatch(pattern -> resource.matches(pattern));
+		boolean exclude = Config.getSubClassesExcludeMatcher().test(resource);
 				
 		return !exclude;
 	}
@@ -551,7 +649,7 @@ public class APIModel {
 		final String prefix = Config.getPrefixToRemove();
 		final String replacement = Config.getPrefixToReplace();
 
-		String res = resource.replaceAll(prefix,replacement);
+		String res = prefix.isEmpty() && replacement.isEmpty() ? resource : PatternRegistry.compile(prefix).matcher(resource).replaceAll(replacement);
 
 		LOG.debug("removePrefix resource={} prefix={} res={}", resource, prefix, res);
 
@@ -582,6 +680,10 @@ public class APIModel {
 
 	@LogMethod(level=LogLevel.DEBUG)
 	public static boolean isSimpleType(String type) {
+		return ctx().typeClassification.is(type, TypeClassification.SIMPLE, APIModel::classifySimpleType);
+	}
+
+	private static boolean classifySimpleType(String type) {
 		JSONObject definition = getDefinition(type);
 		LOG.debug("isSimpleType: type={} definition={}", type, definition);
 		
@@ -632,6 +734,10 @@ public class APIModel {
 
 	@LogMethod(level=LogLevel.DEBUG)
 	public static boolean isCustomSimple(String type) {
+		return ctx().typeClassification.is(type, TypeClassification.CUSTOM_SIMPLE, APIModel::classifyCustomSimple);
+	}
+
+	private static boolean classifyCustomSimple(String type) {
 		boolean res=false;
 		JSONObject definition = getDefinition(type);
 //
@@ -716,7 +822,9 @@ public class APIModel {
 	
 				addDefinition(ref, definition);
 				addLocalReferences(external,definition);
-				addExternalReferences(definition);
+				addNestedExternalReferences(definition);
+				
+				prepareDeferredDefinitions();
 	
 				LOG.debug("getTypeByReference: ref={} type={}",  ref, type);
 			}
@@ -759,7 +867,7 @@ public class APIModel {
 						JSONObject obj=(JSONObject)externalDefinition;
 						LOG.debug("APIModel::addLocalReferences:: ref={} externalDefinition={}", definition.get(property), externalDefinition);
 						addDefinition(ref,obj);
-						addExternalReferences(obj);
+						addNestedExternalReferences(obj);
 						addLocalReferences(external,obj);
 												
 					} else {
@@ -790,9 +898,9 @@ public class APIModel {
 		int hashIndex = ref.indexOf("#/");
 		if(hashIndex>0) {
 			String externalSource=ref.substring(0, hashIndex);
-			LOG.debug("getDefinitionByReference: ref={} hashIndex={} externalSoure={} source={}",  ref, hashIndex, externalSource, swaggerSource);
+			LOG.debug("getDefinitionByReference: ref={} hashIndex={} externalSoure={} source={}",  ref, hashIndex, externalSource, ctx().swaggerSource);
 			
-			String candidateExternalSource=Utils.getRelativeFile(swaggerSource, externalSource);
+			String candidateExternalSource=Utils.getRelativeFile(ctx().swaggerSource, externalSource);
 			
 			LOG.debug("getDefinitionByReference: ref={} candidateExternalSource={}",  ref, candidateExternalSource);
 
@@ -803,7 +911,7 @@ public class APIModel {
 		if(ref.startsWith("#")) {
 			String[] parts=ref.split("/");
 	
-			if(parts[0].contentEquals("#")) res = swagger;
+			if(parts[0].contentEquals("#")) res = ctx().swagger;
 	
 			for(int idx=1; idx<parts.length; idx++) {
 				if(res.has(parts[idx])) res = res.optJSONObject(parts[idx]);
@@ -811,15 +919,62 @@ public class APIModel {
 			
 			LOG.debug("getDefinitionByReference: ref={} res={}",  ref, res );
 
+		} else if(ctx().externalsDeferred) {
+			res = resolveExternalReference(ref);
 		} else {
 			res = APIModel.getExternal(ref);
 		}
 
-		if(res.has(REF)) res = getDefinitionByReference(res.optString(REF));
+		if(res!=null && res.has(REF)) res = getDefinitionByReference(res.optString(REF));
 
 		return res;
 	}
 
+	/*
+	 * Lazy mode: load the external document on first use and merge the referenced definition, 
+	 * and the local definitions it refers to, into the model
+	 */
+	/*
+	 * Lazy mode: the definitions are merged and rearranged under the context lock, 
+	 * as the same context may be read from several threads
+	 */
+	private static JSONObject resolveExternalReference(String ref) {
+		synchronized(ctx()) {
+			JSONObject external = getExternal(ref);
+			if(external==null) return null;
+	
+			String localRef = getLocalPart(ref);
+			if(localRef==null || localRef.isEmpty()) return external;
+	
+			JSONObject definition = getExternalDefinition(external, ref);
+			if(definition!=null && !ctx().externalDefinitions.containsKey(ref)) {
+				LOG.debug("resolveExternalReference: ref={}", ref);
+	
+				ctx().externalDefinitions.put(ref, definition);
+				addDefinition(ref, definition);
+				addLocalReferences(external, definition);
+				
+				prepareDeferredDefinitions();
+			}
+	
+			return definition;
+		}
+	}
+
+	private static JSONObject resolveDeferredStub(String node, String ref) {
+		synchronized(ctx()) {
+			boolean deferred = ctx().resolvedStubs.add(node);
+
+			JSONObject res = getDefinitionByReference(ref);
+			
+			if(deferred) {
+				ctx().deferredTypes.add(node);
+				prepareDeferredDefinitions();
+			}
+			return res;
+		}
+	}
+
 	@LogMethod(level=LogLevel.DEBUG)
 	protected static JSONObject getPropertySpecification(String resource, String property) {
 		JSONObject res=getPropertyObjectForResource(resource);
@@ -840,8 +995,8 @@ public class APIModel {
 	public static JSONObject getPropertyObjectForResource(String coreResource) {
 		JSONObject res=null;
 		
-		if(resourcePropertyMap.containsKey(coreResource)) {
-			return resourcePropertyMap.get(coreResource);
+		if(ctx().resourcePropertyMap.containsKey(coreResource)) {
+			return ctx().resourcePropertyMap.get(coreResource);
 		} else {
 			res = getDefinition(coreResource, PROPERTIES);
 			
@@ -855,28 +1010,27 @@ public class APIModel {
 
 				res = mergeJSON(res,allOfs);
 				
-				resourcePropertyMap.put(coreResource, res);
+				ctx().resourcePropertyMap.put(coreResource, res);
 				
 				LOG.debug("getPropertyObjectForResource: resource={} properties={}",  coreResource, res.keySet());
 
 			}
 			
-			resourcePropertyMap.put(coreResource, res);
+			ctx().resourcePropertyMap.put(coreResource, res);
 
 		}
 
 		return res;
 	}
 
-	static Map<String,JSONObject> flattened = new HashMap<>();
 	
 	@LogMethod(level=LogLevel.DEBUG) 
 	public static JSONObject getFlattenAllOfs(String resource) {
 		LOG.debug("getFlattenAllOfs: resource={}", resource);
 		
-		if(flattened.containsKey(resource)) return flattened.get(resource);
+		if(ctx().flattened.containsKey(resource)) return ctx().flattened.get(resource);
 		
-		flattened.put(resource, new JSONObject());
+		ctx().flattened.put(resource, new JSONObject());
 		
 		final JSONObject target = new JSONObject();
 		JSONObject definition = getDefinition(resource);
@@ -909,7 +1063,7 @@ public class APIModel {
 			}
 		}
 		
-		flattened.put(resource, target);
+		ctx().flattened.put(resource, target);
 		
 		return target;
 	}
@@ -1011,6 +1165,10 @@ public class APIModel {
 
 	@LogMethod(level=LogLevel.DEBUG)
 	public static boolean isEnumType(String type) {
+		return ctx().typeClassification.is(type, TypeClassification.ENUM, APIModel::classifyEnumType);
+	}
+
+	private static boolean classifyEnumType(String type) {
 		boolean res=false;
 		JSONObject definition = getDefinition(type);
 		if(definition!=null) {
@@ -1022,18 +1180,13 @@ public class APIModel {
 
 	@LogMethod(level=LogLevel.DEBUG)
 	public static Set<String> getPaths() {
-		if(swagger!=null && swagger.has(PATHS))
-			return swagger.getJSONObject(PATHS).keySet();
+		if(ctx().swagger!=null && ctx().swagger.has(PATHS))
+			return ctx().swagger.getJSONObject(PATHS).keySet();
 		else
 			return new HashSet<>();
 	}
 
 
-	@LogMethod(level=LogLevel.DEBUG)
-	private static List<JSONObject> getChildElements(JSONObject obj) {
-		return new JSONObjectHelper(obj).getChildElements();
-	}
-
 
 	@LogMethod(level=LogLevel.DEBUG)
 	private static List<JSONObject> getNormalResponses(JSONObject respObj) {
@@ -1051,7 +1204,7 @@ public class APIModel {
 
 	@LogMethod(level=LogLevel.DEBUG)
 	private static JSONObject getPathObjectByKey(String path) {
-		return swagger.getJSONObject(PATHS).getJSONObject(path);
+		return ctx().swagger.getJSONObject(PATHS).getJSONObject(path);
 	}
 
 
@@ -1078,11 +1231,11 @@ public class APIModel {
 		} else if(definitions.optJSONObject(node)!=null) {
 			res = definitions.optJSONObject(node);
 		} else if(!Config.getPrefixToRemove().isEmpty()) {
-			Optional<String> actualDefinition = definitions.keySet().stream().filter(s -> removePrefix(s).contentEquals(node)).findFirst();
+			String actualDefinition = ctx().definitionIndex.lookup(definitions, node);
 			LOG.debug("getDefinition: node={} actualDefinition={}", node, actualDefinition);
 
-			if(actualDefinition.isPresent()) {
-				res = definitions.optJSONObject(actualDefinition.get());
+			if(actualDefinition!=null) {
+				res = definitions.optJSONObject(actualDefinition);
 			} else {
 				res = null;
 			}
@@ -1092,42 +1245,72 @@ public class APIModel {
 
 		if(res!=null) {
 			if(res.has(REF)) {
-				res = getDefinitionByReference(res.getString(REF));
+				String ref = res.getString(REF);
+				if(ctx().externalsDeferred && isExternalReference(ref)) {
+					res = resolveDeferredStub(node, ref);
+				} else {
+					res = getDefinitionByReference(ref);
+				}
 			}
 		}
 		
-		LOG.debug("getDefinition: node={} res={}", node, res!=null? res.toString() : null);
+		LOG.debug("getDefinition: node={} res={}", node, res);
 
 		return res;	
 	}
 
-	static JSONObject allDefinitions = new JSONObject();
 
 	@LogMethod(level=LogLevel.DEBUG)
 	public static JSONObject getDefinitions() {
-		if(swagger!=null && allDefinitions.keySet().isEmpty()) {	
+		if(ctx().swagger!=null && ctx().allDefinitions.keySet().isEmpty()) {	
 			
 			LOG.debug("APIModel::getDefinitions:: get all definitions");
 			
-			addExternalReferences(swagger);
+			ctx().externalsDeferred = Config.getBoolean(LAZY_EXTERNAL_REFERENCES);
+			
+			if(!ctx().externalsDeferred) {
+				PhaseTracer.run("resolveExternalReferences", () -> {
+					prefetchExternals();
+					addExternalReferences(ctx().swagger);
+				});
+			}
 			
 			JSONObject res=null;
-			if(isOpenAPIv2(swagger))
-				res=swagger.optJSONObject("definitions");
+			if(isOpenAPIv2(ctx().swagger))
+				res=ctx().swagger.optJSONObject("definitions");
 			else {
-				JSONObject components = swagger.optJSONObject("components");
+				JSONObject components = ctx().swagger.optJSONObject("components");
 				if(components!=null) res = components.optJSONObject("schemas");
 			}
 			
-			if(res!=null) allDefinitions = res;
+			if(res!=null) ctx().allDefinitions = res;
 			
-			LOG.debug("APIModel::getDefinitions:: keys={}", allDefinitions.keySet());
+			ctx().typeClassification.clear();
+			
+			LOG.debug("APIModel::getDefinitions:: keys={}", ctx().allDefinitions.keySet());
 
 		}
-		return allDefinitions;
+		return ctx().allDefinitions;
 	}
 
 
+	private static void prefetchExternals() {
+		if(ctx().swaggerSource==null) return;
+		
+		Map<String,JSONObject> prefetched = ExternalReferencePrefetch.prefetch(ctx().swagger, ctx().swaggerSource, ctx().externals.keySet(), ctx().failedExternals);
+		
+		LOG.debug("prefetchExternals: keys={}", prefetched.keySet());
+
+		ctx().externals.putAll(prefetched);
+	}
+
+	/*
+	 * External references found in merged definitions are resolved on first use in lazy mode
+	 */
+	private static void addNestedExternalReferences(JSONObject api) {
+		if(!ctx().externalsDeferred) addExternalReferences(api);
+	}
+
 	public static void addExternalReferences(JSONObject api) {
 		if(api==null || api.isEmpty()) return;
 		
@@ -1145,7 +1328,7 @@ public class APIModel {
 					if(externalDefinition!=null) {
 						LOG.debug("APIModel::addExternalReferences:: ref={} externalDefinition={}", api.get(property), externalDefinition);
 						addDefinition(ref,externalDefinition);
-						addExternalReferences(externalDefinition);
+						addNestedExternalReferences(externalDefinition);
 						addLocalReferences(external,externalDefinition);
 					}
 					String localRef=getExternalReference(ref); //ref.substring(ref.indexOf("#/"));	
@@ -1170,11 +1353,11 @@ public class APIModel {
 		//String localRef=ref.substring(ref.indexOf("#/"));
 		String localRef=getExternalReference(ref);
 		
-		if(swagger!=null) {
+		if(ctx().swagger!=null) {
 			String parts[] = localRef.replace("#/", "").split("/");
 		
 			LOG.debug("addDefinition: localRef={} parts={}",  localRef, parts);
-			JSONObject target=swagger;
+			JSONObject target=ctx().swagger;
 			if(parts.length>1) {
 				for(int idx=0; idx<parts.length-1; idx++) {
 					
@@ -1209,7 +1392,11 @@ public class APIModel {
 
 					} else {
 						target.put(type,  definition);
-						allDefinitions.put(type, definition);
+						ctx().allDefinitions.put(type, definition);
+						ctx().definitionIndex.add(type);
+						ctx().typeClassification.clear();
+						
+						if(ctx().externalsDeferred) ctx().deferredTypes.add(type);
 
 						LOG.debug("addDefinition: put type={} target={}",  type, target.keySet());
 					}
@@ -1316,7 +1503,7 @@ public class APIModel {
 	private static JSONObject getExternalDefinition(JSONObject external, String ref) {
 		JSONObject res=null;
 		
-		if(externalDefinitions.containsKey(ref)) return externalDefinitions.get(ref);
+		if(ctx().externalDefinitions.containsKey(ref)) return ctx().externalDefinitions.get(ref);
 		
 		if(isExternalReference(ref)) {
 			// String localRef=getExternalReference(ref);
@@ -1359,28 +1546,27 @@ public class APIModel {
 	}
 
 		
-	static Set<String> seenRefs = new HashSet<>();
 	
 	private static JSONObject getExternal(String ref) {
 		JSONObject res=null;
 		
 		String key = getKey(ref);
 		
-		if(externals.containsKey(key)) {
-			res=externals.get(key);
+		if(ctx().externals.containsKey(key)) {
+			res=ctx().externals.get(key);
 			
-			LOG.debug("getExternal: FOUND key={} keys={} ",  key, externals.keySet());
+			LOG.debug("getExternal: FOUND key={} keys={} ",  key, ctx().externals.keySet());
 
 		} else {
 				
-			if(seenRefs.contains(ref) && !externals.isEmpty()) {
+			if(ctx().seenRefs.contains(ref) && !ctx().externals.isEmpty()) {
 				Out.debug("getExternal: RECURSIVE ref={}", ref );
-				Out.debug("getExternal: externals keys={}", externals.keySet() );
+				Out.debug("getExternal: externals keys={}", ctx().externals.keySet() );
 
 				return new JSONObject();
 			}
 
-			seenRefs.add(ref);
+			ctx().seenRefs.add(ref);
 
 			String externalSource = APIModel.getExternalReference(ref);
 			if(externalSource!=null && !externalSource.isEmpty()) {	
@@ -1388,18 +1574,21 @@ public class APIModel {
 				
 				Out.printOnce("... retrieve external source {}",  externalSource);
 
-				LOG.debug("... retrieve external source {} key={} keys={}",  externalSource, key, externals.keySet());
+				LOG.debug("... retrieve external source {} key={} keys={}",  externalSource, key, ctx().externals.keySet());
 					
-				String candidateExternalSource=Utils.getRelativeFile(swaggerSource, externalSource);							
+				String candidateExternalSource=Utils.getRelativeFile(ctx().swaggerSource, externalSource);							
 				if(candidateExternalSource!=null) {		
 					
 					// candidateExternalSource = candidateExternalSource.replace("0//", "0/");
 					
 					LOG.debug("getExternal: readJSONOrYaml candidateExternalSource={}", candidateExternalSource);
 	
+					// not read again when the prefetch failed
+					if(ctx().failedExternals.containsKey(key)) Utils.exitUnreadable(candidateExternalSource, ctx().failedExternals.get(key));
+					
 					res=Utils.readJSONOrYaml(candidateExternalSource);
 					
-					externals.put(key, res);
+					ctx().externals.put(key, res);
 									
 				}
 	
@@ -1425,9 +1614,9 @@ public class APIModel {
 	public static List<String> getPaths(String resource, String operation) {
 		List<String> res = new LinkedList<>();
 
-		if(swagger==null) return res;
+		if(ctx().swagger==null) return res;
 
-		JSONObject allpaths = swagger.optJSONObject(PATHS);
+		JSONObject allpaths = ctx().swagger.optJSONObject(PATHS);
 
 		String prefix = "/" + resource.toUpperCase();
 
@@ -1448,9 +1637,9 @@ public class APIModel {
 	public static List<String> getPaths(String resource) {
 		List<String> res = new LinkedList<>();
 
-		if(swagger==null) return res;
+		if(ctx().swagger==null) return res;
 
-		JSONObject allpaths = swagger.optJSONObject(PATHS);
+		JSONObject allpaths = ctx().swagger.optJSONObject(PATHS);
 
 		String prefix = "/" + resource.toUpperCase();
 
@@ -1499,7 +1688,7 @@ public class APIModel {
 	}
 
 	private static void setSeenAPImessage() {
-		firstAPImessage=false;
+		ctx().firstAPImessage=false;
 	}
 
 	@LogMethod(level=LogLevel.DEBUG)
@@ -1507,7 +1696,7 @@ public class APIModel {
 		List<String> res = new LinkedList<>();
 
 		if(rules==null || rules.isEmpty()) {
-			if(firstAPImessage) Out.println("... extracting notification support from API");
+			if(ctx().firstAPImessage) Out.println("... extracting notification support from API");
 			setSeenAPImessage();
 			return getNotificationsFromSwagger(resource);
 		}
@@ -1616,7 +1805,7 @@ public class APIModel {
 	}
 
 	public static JSONObject getInfo() {
-		return swagger.optJSONObject("info");
+		return ctx().swagger.optJSONObject("info");
 	}
 
 	public static List<String> getEnumValues(String orphanEnum) {
@@ -1704,7 +1893,6 @@ public class APIModel {
 		}
 	}
 
-	private static Set<String> typeWarnings = new HashSet<>();
 	
 
 	@LogMethod(level=LogLevel.DEBUG)
@@ -1731,9 +1919,9 @@ public class APIModel {
 					res = Config.getFormatToType().get(format);
 	
 				} else {
-					if(!typeWarnings.contains(format) ) {
+					if(!ctx().typeWarnings.contains(format) ) {
 						Out.debug("... format: {} has no mapping, using type and format", format);
-						typeWarnings.add(format);
+						ctx().typeWarnings.add(format);
 					}
 					res = property.getString(TYPE) + '/' + format;
 				}
@@ -1759,7 +1947,7 @@ public class APIModel {
 	
 			} else {
 				if(!isSecialProperty(name)) {  
-					Out.printOnce("... Possible issue: No type information in '{}' ({}) - using '{}'", property.toString(2), Utils.getBaseFileName(swaggerSource), "{}");
+					Out.printOnce("... Possible issue: No type information in '{}' ({}) - using '{}'", property.toString(2), Utils.getBaseFileName(ctx().swaggerSource), "{}");
 				}
 				res = "{}"; // property.toString(); // should not really happen
 			}
@@ -1812,7 +2000,7 @@ public class APIModel {
 
 		if(res==null) {
 			if(!isSecialProperty(name)) {
-				Out.printOnce("... Possible issue: No type information in '{}' ({}) - using '{}'", property, Utils.getBaseFileName(swaggerSource), "{}");
+				Out.printOnce("... Possible issue: No type information in '{}' ({}) - using '{}'", property, Utils.getBaseFileName(ctx().swaggerSource), "{}");
 			}
 				// System.exit(1);
 			res="{}";
@@ -1963,6 +2151,23 @@ public class APIModel {
 
 	}
 	
+	@LogMethod(level=LogLevel.DEBUG)
+	public static APIModelContext loadContext(String file) {
+		APIModelContext res = new APIModelContext();
+		res.run(() -> {
+			setSwaggerSource(file);
+			loadAPI(file);
+		});
+		return res;
+	}
+
+	@LogMethod(level=LogLevel.DEBUG)
+	public static APIModelContext loadContext(String source, InputStream is) {
+		APIModelContext res = new APIModelContext();
+		res.run(() -> loadAPI(source, is));
+		return res;
+	}
+
 	@LogMethod(level=LogLevel.DEBUG)
 	public static APIModel loadAPI(String filename, File file) {
 		
@@ -2269,97 +2474,39 @@ public class APIModel {
 	@LogMethod(level=LogLevel.DEBUG)
 	public static List<String> getOperationsByResource(String resource) {
 
-		List<String> allPaths = getPathsForResource(resource);
-
-		List<String> res = allPaths.stream()
-				.map(APIModel::getPath)
-				.map(JSONObject::keySet)
-				.flatMap(Set::stream)
-				.map(String::toUpperCase)
-				.distinct()
-				.collect(Collectors.toList());
-
-		// the first part will not find DELETE operations
-		// look for paths of the form /.../{..} where we have seen the first part, i.e. /.../
-		getPaths().forEach( path ->  {
-			String corePath = path.replaceAll("/\\{[^}]+\\}$", "");
-
-			if(!allPaths.contains(corePath)) return;
+		// includes the operations of paths of the form /.../{..} where /.../ is a path of the resource (DELETE operations)
+		return getResourceIndex().getOperationsByResource(resource);
 
-			res.addAll( getOperationsForPath(path) );
-
-		});
-
-		return res.stream().distinct().collect(Collectors.toList());
-
-	}
-
-	@LogMethod(level=LogLevel.DEBUG)
-	private static List<String> getOperationsForPath(String path) {
-		List<String> res=new LinkedList<>();
-		JSONObject pathObj = getPathObjectByKey(path);
-		if(pathObj!=null) {
-			res.addAll( pathObj.keySet().stream()
-					.map(String::toUpperCase)
-					.collect(Collectors.toList()) );
-		}
-		return res;
-	}
-
-	@LogMethod(level=LogLevel.DEBUG)
-	private static JSONObject getPath(String path) {
-		return swagger.getJSONObject(PATHS).optJSONObject(path);
 	}
 
-	static Map<String,List<String>> pathsForResources = new HashMap<>();
-
 	@LogMethod(level=LogLevel.DEBUG)
 	private static List<String> getPathsForResource(String resource) {
 
-		if(!pathsForResources.containsKey(resource)) {
-			pathsForResources.put(resource, new LinkedList<>());
-
-			getPaths().forEach( path ->  {
+		return getResourceIndex().getPathsForResource(resource);
 
-				List<String> foundResources = getResponseResourcesByPath(path);
-
-				foundResources.forEach(found -> {
-					if(!pathsForResources.containsKey(found)) {
-						pathsForResources.put(found, new LinkedList<>());
-					}
-					pathsForResources.get(found).add(path);
-				});
-
-			});
+	}
 
-		}
+	@LogMethod(level=LogLevel.DEBUG)
+	private static List<String> getResponseResourcesByPath(String path) {
 
-		return pathsForResources.get(resource);
+		return getResourceIndex().getResponseResourcesByPath(path);
 
 	}
 
 	@LogMethod(level=LogLevel.DEBUG)
-	private static List<String> getResponseResourcesByPath(String path) {
+	public static List<String> getRequestResourcesByPath(String path, String op) {
 
-		return getChildStream(getPathObjectByKey(path))
-				.filter(APIModel::hasResponses)
-				.map(APIModel::getResponseEntity)
-				.map(APIModel::getNormalResponses)
-				.flatMap(List::stream)
-				.map(APIModel::getResourceFromResponse)
-				.flatMap(List::stream)
-				// 2022-11-04 .map(APIModel::getMappedResource)
-				.collect(Collectors.toList());
+		return getResourceIndex().getRequestResourcesByPath(path, op);
 
 	}
 
 	@LogMethod(level=LogLevel.DEBUG)
 	public static String getMappedResource(String resource) {
 		String res=resource;
-		LOG.debug("getMappedResource: resource={} resourceMapping={}", resource, resourceMapping);
+		LOG.debug("getMappedResource: resource={} resourceMapping={}", resource, ctx().resourceMapping);
 
-		if(resourceMapping!=null && resourceMapping.has(resource) && resourceMapping.optString(resource)!=null) {
-			res = resourceMapping.getString(resource);
+		if(ctx().resourceMapping!=null && ctx().resourceMapping.has(resource) && ctx().resourceMapping.optString(resource)!=null) {
+			res = ctx().resourceMapping.getString(resource);
 			LOG.debug("getMappedResource: resource={} res={}", resource, res);
 		}
 		return res;
@@ -2368,8 +2515,8 @@ public class APIModel {
 	@LogMethod(level=LogLevel.DEBUG)
 	public static String getReverseResourceMapping(String resource) {
 		String res=resource;
-		if(reverseMapping!=null && reverseMapping.has(resource) && reverseMapping.optString(resource)!=null) {
-			res = reverseMapping.getString(resource);
+		if(ctx().reverseMapping!=null && ctx().reverseMapping.has(resource) && ctx().reverseMapping.optString(resource)!=null) {
+			res = ctx().reverseMapping.getString(resource);
 		}
 		return res;
 	}
@@ -2388,11 +2535,6 @@ public class APIModel {
 		return res;
 	}
 
-	@LogMethod(level=LogLevel.DEBUG)
-	private static Stream<JSONObject> getChildStream(JSONObject obj) {
-		return new JSONObjectHelper(obj).getChildStream();
-	}
-
 
 	@LogMethod(level=LogLevel.DEBUG)
 	public static Set<String> getProperties(String resource) {
@@ -2527,22 +2669,17 @@ public class APIModel {
 
 
 
-	@LogMethod(level=LogLevel.DEBUG)
-	private static List<JSONObject> getPathObjs() {
-		return getPaths().stream().map(APIModel::getPathObjectByKey).collect(Collectors.toList());
-	}
-
 	@LogMethod(level=LogLevel.DEBUG)
 	public static List<String> getAllOperations() {
 		List<String> res = new LinkedList<>();
 
-		if(swagger==null) {
+		if(ctx().swagger==null) {
 			LOG.info("... missing API specification (swagger)");
 			return res;
 		}
 
-		swagger.getJSONObject(PATHS).keySet().forEach( path ->  {
-			JSONObject pathObj = swagger.getJSONObject(PATHS).getJSONObject(path);
+		ctx().swagger.getJSONObject(PATHS).keySet().forEach( path ->  {
+			JSONObject pathObj = ctx().swagger.getJSONObject(PATHS).getJSONObject(path);
 			pathObj.keySet().forEach( op ->
 			res.add(op.toUpperCase())
 					);
@@ -2557,9 +2694,9 @@ public class APIModel {
 		JSONObject res = new JSONObject();
 		JSONObject variables = new JSONObject();
 
-		if(swagger==null) return res;
+		if(ctx().swagger==null) return res;
 
-		JSONObject info = swagger.optJSONObject("info");
+		JSONObject info = ctx().swagger.optJSONObject("info");
 
 		if(info!=null) {
 			variables.put("ApiName", info.get("title"));
@@ -2595,7 +2732,7 @@ public class APIModel {
 
 		}
 
-		String basePath = swagger.optString("basePath");
+		String basePath = ctx().swagger.optString("basePath");
 		if(!basePath.isEmpty()) variables.put("basePath", basePath);
 
 		if(!variables.isEmpty()) res.put("variables", variables);
@@ -2621,9 +2758,9 @@ public class APIModel {
 	public static List<JSONObject> getOperationsDetailsByResource(String resource, String operation) {
 		List<JSONObject> res = new LinkedList<>();
 
-		if(swagger==null) return res;
+		if(ctx().swagger==null) return res;
 
-		JSONObject allpaths = swagger.optJSONObject(PATHS);
+		JSONObject allpaths = ctx().swagger.optJSONObject(PATHS);
 
 		String prefix = "/" + resource.toUpperCase();
 
@@ -2646,9 +2783,9 @@ public class APIModel {
 	public static JSONObject getOperationsDetailsByPath(String path, String op) {
 		JSONObject res = null;
 
-		if(swagger==null) return res;
+		if(ctx().swagger==null) return res;
 
-		JSONObject allPaths = swagger.optJSONObject(PATHS);
+		JSONObject allPaths = ctx().swagger.optJSONObject(PATHS);
 
 		if(allPaths.has(path) && allPaths.optJSONObject(path)!=null) {
 			JSONObject endpoint = allPaths.optJSONObject(path);
@@ -2663,10 +2800,10 @@ public class APIModel {
 
 	public static String getSuccessResponseCode(String path, String op) {
 		String res="";
-		JSONObject operation = APIModel.getOperationsDetailsByPath(path, op);
+		List<String> allResponseCodes = getResourceIndex().getResponseCodes(path, op);
 		
-		if(operation!=null && operation.has(RESPONSES)) {
-			Set<String> responseCodes = operation.optJSONObject(RESPONSES).keySet().stream().filter(v -> v.startsWith("2")).collect(toSet());
+		if(!allResponseCodes.isEmpty()) {
+			Set<String> responseCodes = allResponseCodes.stream().filter(v -> v.startsWith("2")).collect(toSet());
 			
 			LOG.debug("getSuccessResponseCode: path={} op={} responseCodes={}",  path, op, responseCodes);
 			
@@ -2698,53 +2835,7 @@ public class APIModel {
 
 	@LogMethod(level=LogLevel.DEBUG)
 	public static Set<String> getResourcesByOperation(String operation) {
-		Set<String> res = new HashSet<>();
-
-		if(operationCounter==null) {
-			operationCounter = extractAllOperationsForResources(swagger);
-		}
-
-		if(operationCounter.containsKey(operation)) {
-			res.addAll(operationCounter.get(operation).counts.keySet());
-		}
-		return res;
-	}
-
-	@LogMethod(level=LogLevel.DEBUG)
-	private static Map<String,Counter> extractAllOperationsForResources(JSONObject swagger) {
-
-		// map of counters per operation / method
-		Map<String,Counter>  res = ALL_OPS.stream().collect(Collectors.toMap(p -> p, p -> new Counter()));
-
-		if(swagger==null) {
-			LOG.info("... missing API specification (swagger)");
-			return res;
-		}
-
-		for(JSONObject pathObj : getPathObjs() ) {
-			for(String op : pathObj.keySet()) {
-
-				JSONObject opObj = pathObj.getJSONObject(op);
-
-				List<String> resources = getChildStream(opObj)
-						.filter(APIModel::hasResponses)
-						.map(APIModel::getResponseEntity)
-						.map(APIModel::getNormalResponses)
-						.flatMap(List::stream)
-						.map(APIModel::getResourceFromResponse)
-						.flatMap(List::stream)
-						// 2022-11-04 .map(APIModel::getMappedResource)
-						.collect(Collectors.toList());
-
-				for(String resource : resources) {
-					res.get(op).increment(resource);
-				}
-
-			}
-		}
-
-		return res;
-
+		return getResourceIndex().getResourcesByOperation(operation);
 	}
 
 	public static Map<String, JSONObject> getOperationResponsesByResource(JSONObject opDetails) {
@@ -2866,6 +2957,10 @@ public class APIModel {
 	}
 
 	public static boolean isArrayType(String type) {
+		return ctx().typeClassification.is(type, TypeClassification.ARRAY, APIModel::classifyArrayType);
+	}
+
+	private static boolean classifyArrayType(String type) {
 		boolean res=false;
 		JSONObject definition = getDefinition(type);
 		
@@ -0,0 +1,130 @@
+package no.paneon.api.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONObject;
+
+/*
+ * The state of one loaded API specification. 
+ * 
+ * The static APIModel methods operate on the context bound to the calling thread 
+ * (see run() / call()), or on a shared default context when none is bound. 
+ * Separate contexts can be loaded and processed on separate threads in parallel.
+ */
+public class APIModelContext {
+
+	static final Logger LOG = LogManager.getLogger(APIModelContext.class);
+
+	JSONObject swagger;
+	String swaggerSource;
+
+	JSONObject resourceMapping;
+	JSONObject reverseMapping;
+
+	JSONObject allDefinitions = new JSONObject();
+	
+	final DefinitionIndex definitionIndex = new DefinitionIndex();
+	final TypeClassification typeClassification = new TypeClassification();
+
+	boolean firstAPImessage=true;
+	boolean externalsDeferred=false;
+	Set<String> resolvedStubs = ConcurrentHashMap.newKeySet();
+	Set<String> deferredTypes = new LinkedHashSet<>(); // guarded by this context
+
+	volatile ResourceIndex resourceIndex = null;
+	List<String> resources = null;
+
+	Map<String,JSONObject> resourcePropertyMap = synchronizedMap();
+	Map<String,JSONObject> flattened = synchronizedMap();
+
+	Map<String,JSONObject> externalDefinitions = synchronizedMap();
+	Map<String,JSONObject> externals = synchronizedMap();
+	Map<String,String> failedExternals = synchronizedMap();
+
+	Set<String> seenRefs = Collections.synchronizedSet(new HashSet<>());
+	Set<String> typeWarnings = Collections.synchronizedSet(new HashSet<>());
+
+	private final Map<String,Object> attached = new ConcurrentHashMap<>();
+
+	public APIModelContext() {
+		// empty model, populated through the static APIModel methods when bound
+	}
+
+	synchronized void clean() {
+		allDefinitions = new JSONObject();	
+		definitionIndex.clear();
+		typeClassification.clear();
+		resourcePropertyMap = synchronizedMap();
+		swagger = null;
+		firstAPImessage=true;
+		externalsDeferred=false;
+		resolvedStubs = ConcurrentHashMap.newKeySet();
+		deferredTypes = new LinkedHashSet<>();
+		resourceIndex = null;
+		
+		externals = synchronizedMap();
+		failedExternals = synchronizedMap();
+		externalDefinitions = synchronizedMap();
+		
+		attached.clear();
+	}
+
+	public void run(Runnable task) {
+		if(APIModel.ctx()==this) {
+			task.run();
+			return;
+		}
+		APIModelContext prev = APIModel.bind(this);
+		try {
+			task.run();
+		} finally {
+			APIModel.bind(prev);
+		}
+	}
+
+	public <T> T call(Supplier<T> task) {
+		if(APIModel.ctx()==this) return task.get();
+		APIModelContext prev = APIModel.bind(this);
+		try {
+			return task.get();
+		} finally {
+			APIModel.bind(prev);
+		}
+	}
+
+	public JSONObject getSwagger() {
+		return swagger;
+	}
+
+	public String getSource() {
+		return swaggerSource;
+	}
+
+	public Set<String> getLoadedExternals() {
+		return new HashSet<>(externals.keySet());
+	}
+
+	/*
+	 * State kept per context by other packages (e.g. the graph nodes by name), 
+	 * released with the context and by clean()
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getAttached(String key, Supplier<T> init) {
+		return (T) attached.computeIfAbsent(key, k -> init.get());
+	}
+
+	private static <K,V> Map<K,V> synchronizedMap() {
+		return Collections.synchronizedMap(new HashMap<>());
+	}
+
+}
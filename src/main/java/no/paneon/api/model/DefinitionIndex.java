@@ -0,0 +1,67 @@
+package no.paneon.api.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONObject;
+
+import no.paneon.api.utils.Config;
+
+/*
+ * Maps prefix-normalized definition names (see APIModel.removePrefix) to the actual definition key.
+ * Built on first use for a definitions object and configured prefix, extended as definitions are added.
+ */
+class DefinitionIndex {
+
+	static final Logger LOG = LogManager.getLogger(DefinitionIndex.class);
+
+	private JSONObject definitions = null;
+	private String prefix = "";
+	private String replacement = "";
+	private int size = 0;
+
+	private final Map<String,String> normalized = new HashMap<>();
+
+	synchronized String lookup(JSONObject definitions, String node) {
+		String currentPrefix = Config.getPrefixToRemove();
+		String currentReplacement = Config.getPrefixToReplace();
+
+		if(definitions!=this.definitions || !currentPrefix.equals(prefix) || !currentReplacement.equals(replacement) || definitions.length()<size) {
+			this.definitions = definitions;
+			this.prefix = currentPrefix;
+			this.replacement = currentReplacement;
+			this.normalized.clear();
+			this.size = 0;
+		}
+
+		if(definitions.length()!=size) {
+			definitions.keySet().forEach(this::index);
+			size = definitions.length();
+
+			LOG.debug("lookup: indexed definitions={}", size);
+		}
+
+		String res = normalized.get(node);
+		return res!=null && definitions.has(res) ? res : null;
+	}
+
+	synchronized void add(String key) {
+		if(definitions==null || !definitions.has(key)) return;
+
+		index(key);
+		size = definitions.length();
+	}
+
+	synchronized void clear() {
+		definitions = null;
+		normalized.clear();
+		size = 0;
+	}
+
+	private void index(String key) {
+		normalized.putIfAbsent(APIModel.removePrefix(key), key);
+	}
+
+}
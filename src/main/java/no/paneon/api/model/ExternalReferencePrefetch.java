@@ -0,0 +1,185 @@
+package no.paneon.api.model;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import no.paneon.api.logging.LogMethod;
+import no.paneon.api.logging.AspectLogger.LogLevel;
+import no.paneon.api.utils.Config;
+import no.paneon.api.utils.Out;
+import no.paneon.api.utils.Utils;
+
+/*
+ * Discovers the external documents transitively referenced from an API specification
+ * and retrieves them concurrently, before the definitions are merged by APIModel.addExternalReferences()
+ *
+ * Documents that cannot be read are returned in failed (key and error), for the sequential resolution
+ * to report once without reading them again
+ */
+public class ExternalReferencePrefetch {
+
+	static final Logger LOG = LogManager.getLogger(ExternalReferencePrefetch.class);
+
+	static final String PARALLELISM = "externalPrefetchParallelism";
+	static final int DEFAULT_PARALLELISM = 8;
+
+	private static final String REF = "$ref";
+
+	private ExternalReferencePrefetch() {
+	}
+
+	@LogMethod(level=LogLevel.DEBUG)
+	public static Map<String,JSONObject> prefetch(JSONObject api, String source, Collection<String> known) {
+		return prefetch(api, source, known, new HashMap<>());
+	}
+
+	@LogMethod(level=LogLevel.DEBUG)
+	public static Map<String,JSONObject> prefetch(JSONObject api, String source, Collection<String> known, Map<String,String> failed) {
+		return prefetch(api, source, known, Config.getInteger(PARALLELISM, DEFAULT_PARALLELISM), failed);
+	}
+
+	@LogMethod(level=LogLevel.DEBUG)
+	public static Map<String,JSONObject> prefetch(JSONObject api, String source, Collection<String> known, int parallelism) {
+		return prefetch(api, source, known, parallelism, new HashMap<>());
+	}
+
+	@LogMethod(level=LogLevel.DEBUG)
+	public static Map<String,JSONObject> prefetch(JSONObject api, String source, Collection<String> known, int parallelism, Map<String,String> failed) {
+		Map<String,JSONObject> res = new HashMap<>();
+
+		if(api==null || source==null || parallelism<=0) return res;
+
+		Set<String> seen = new HashSet<>(known);
+		Set<String> pending = getExternalKeys(api);
+		pending.removeAll(seen);
+
+		if(pending.isEmpty()) return res;
+
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+			Thread thread = new Thread(runnable, "external-prefetch");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		try {
+			CompletionService<Map.Entry<String,Object>> completion = new ExecutorCompletionService<>(executor);
+
+			int inFlight = 0;
+			for(String key : pending) {
+				seen.add(key);
+				submit(completion, source, key);
+				inFlight++;
+			}
+
+			while(inFlight>0) {
+				Future<Map.Entry<String,Object>> done = completion.take();
+				inFlight--;
+
+				Map.Entry<String,Object> entry = done.get();
+				if(!(entry.getValue() instanceof JSONObject)) {
+					failed.put(entry.getKey(), (String) entry.getValue());
+					continue;
+				}
+
+				JSONObject document = (JSONObject) entry.getValue();
+				res.put(entry.getKey(), document);
+
+				for(String key : getExternalKeys(document)) {
+					if(seen.add(key)) {
+						submit(completion, source, key);
+						inFlight++;
+					}
+				}
+			}
+
+		} catch(InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} catch(Exception ex) {
+			LOG.debug("prefetch: source={} exception={}", source, ex.getLocalizedMessage());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		LOG.debug("prefetch: source={} keys={} failed={}", source, res.keySet(), failed.keySet());
+
+		return res;
+	}
+
+	private static void submit(CompletionService<Map.Entry<String,Object>> completion, String source, String key) {
+		Out.printOnce("... retrieve external source {}",  key);
+		completion.submit(() -> fetch(source, key));
+	}
+
+	/*
+	 * The document, or the error message when it cannot be read
+	 */
+	private static Map.Entry<String,Object> fetch(String source, String key) {
+		Object res = null;
+
+		String candidateExternalSource = Utils.getRelativeFile(source, key);
+		if(candidateExternalSource!=null) {
+			try {
+				res = Utils.readJSONOrYaml(candidateExternalSource, false);
+			} catch(Exception ex) {
+				// reported by the sequential resolution
+				LOG.debug("prefetch: unable to read {} exception={}", candidateExternalSource, ex.getLocalizedMessage());
+				res = String.valueOf(ex.getLocalizedMessage());
+			}
+		}
+
+		return new AbstractMap.SimpleEntry<>(key, res);
+	}
+
+	/*
+	 * The external document part of all external references found in the document
+	 */
+	@LogMethod(level=LogLevel.DEBUG)
+	public static Set<String> getExternalKeys(JSONObject document) {
+		Set<String> res = new HashSet<>();
+
+		Deque<Object> stack = new ArrayDeque<>();
+		stack.push(document);
+
+		while(!stack.isEmpty()) {
+			Object item = stack.pop();
+			if(item instanceof JSONObject) {
+				JSONObject obj = (JSONObject) item;
+				for(String property : obj.keySet()) {
+					Object value = obj.opt(property);
+					if(property.contentEquals(REF) && value instanceof String) {
+						String ref = (String) value;
+						if(!ref.isEmpty() && APIModel.isExternalReference(ref)) {
+							int hashIndex = ref.indexOf("#/");
+							res.add(hashIndex>0 ? ref.substring(0, hashIndex) : ref);
+						}
+					} else if(value instanceof JSONObject || value instanceof JSONArray) {
+						stack.push(value);
+					}
+				}
+			} else if(item instanceof JSONArray) {
+				for(Object value : (JSONArray) item) {
+					if(value instanceof JSONObject || value instanceof JSONArray) stack.push(value);
+				}
+			}
+		}
+
+		return res;
+	}
+
+}
@@ -0,0 +1,112 @@
+package no.paneon.api.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/*
+ * Resources, paths, operations, response codes and request bodies of the API paths,
+ * collected in one traversal of the paths (see APIModel.getResourceIndex).
+ *
+ * Operations are upper case, paths and resources are kept in the order of the specification.
+ */
+class ResourceIndex {
+
+	private static final Pattern TRAILING_PARAMETER = Pattern.compile("/\\{[^}]+\\}$");
+
+	private final Map<String,List<String>> operationsByPath = new LinkedHashMap<>();
+	private final Map<String,String> corePaths = new HashMap<>();
+
+	private final Map<String,List<String>> responseResourcesByPath = new HashMap<>();
+	private final Map<String,Map<String,List<String>>> requestResourcesByPath = new HashMap<>();
+	private final Map<String,Map<String,List<String>>> responseCodesByPath = new HashMap<>();
+
+	private final Set<String> coreResources = new LinkedHashSet<>();
+	private final Map<String,Set<String>> pathsByResource = new HashMap<>();
+	private final Map<String,Set<String>> resourcesByOperation = new HashMap<>();
+
+	private final Map<String,List<String>> operationsByResource = new ConcurrentHashMap<>();
+
+	void addPath(String path, Set<String> keys) {
+		List<String> operations = new ArrayList<>();
+		for(String key : keys) {
+			String op = key.toUpperCase();
+			if(!operations.contains(op)) operations.add(op);
+		}
+		operationsByPath.put(path, operations);
+		corePaths.put(path, TRAILING_PARAMETER.matcher(path).replaceAll(""));
+		responseResourcesByPath.put(path, new ArrayList<>());
+	}
+
+	void addOperation(String path, String op, Set<String> responseCodes, List<String> responseResources, List<String> requestResources) {
+		String operation = op.toUpperCase();
+
+		responseResourcesByPath.computeIfAbsent(path, p -> new ArrayList<>()).addAll(responseResources);
+
+		responseCodesByPath.computeIfAbsent(path, p -> new HashMap<>()).put(operation, new ArrayList<>(responseCodes));
+		requestResourcesByPath.computeIfAbsent(path, p -> new HashMap<>()).put(operation, requestResources);
+
+		for(String resource : responseResources) {
+			coreResources.add(resource);
+			pathsByResource.computeIfAbsent(resource, r -> new LinkedHashSet<>()).add(path);
+			resourcesByOperation.computeIfAbsent(operation, o -> new LinkedHashSet<>()).add(resource);
+		}
+	}
+
+	List<String> getCoreResources() {
+		return new ArrayList<>(coreResources);
+	}
+
+	List<String> getPathsForResource(String resource) {
+		return new ArrayList<>(pathsByResource.getOrDefault(resource, Collections.emptySet()));
+	}
+
+	List<String> getResponseResourcesByPath(String path) {
+		return new ArrayList<>(responseResourcesByPath.getOrDefault(path, Collections.emptyList()));
+	}
+
+	List<String> getRequestResourcesByPath(String path, String op) {
+		return new ArrayList<>(requestResourcesByPath.getOrDefault(path, Collections.emptyMap()).getOrDefault(op.toUpperCase(), Collections.emptyList()));
+	}
+
+	List<String> getResponseCodes(String path, String op) {
+		return new ArrayList<>(responseCodesByPath.getOrDefault(path, Collections.emptyMap()).getOrDefault(op.toUpperCase(), Collections.emptyList()));
+	}
+
+	Set<String> getResourcesByOperation(String operation) {
+		return new LinkedHashSet<>(resourcesByOperation.getOrDefault(operation, Collections.emptySet()));
+	}
+
+	/*
+	 * Operations of the paths returning the resource, including those of the sub-paths /.../{..}
+	 * of these paths (where the DELETE operations are found)
+	 */
+	List<String> getOperationsByResource(String resource) {
+		return new ArrayList<>(operationsByResource.computeIfAbsent(resource, this::collectOperations));
+	}
+
+	private List<String> collectOperations(String resource) {
+		Set<String> paths = pathsByResource.getOrDefault(resource, Collections.emptySet());
+
+		Set<String> res = new LinkedHashSet<>();
+		for(String path : paths) {
+			res.addAll(operationsByPath.get(path));
+		}
+
+		if(!paths.isEmpty()) {
+			operationsByPath.forEach((path, operations) -> {
+				if(paths.contains(corePaths.get(path))) res.addAll(operations);
+			});
+		}
+
+		return Collections.unmodifiableList(new ArrayList<>(res));
+	}
+
+}
@@ -0,0 +1,61 @@
+package no.paneon.api.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import no.paneon.api.utils.Config;
+
+/*
+ * Per model cache of the classification of named types (enum, simple, array, custom simple).
+ *
+ * Each kind is computed on first request and stored as a pair of bits per type (known, value).
+ * Only types with a definition are cached, and the cache is cleared when definitions are
+ * added or the configured prefix changes.
+ */
+class TypeClassification {
+
+	static final int ENUM = 0;
+	static final int SIMPLE = 1;
+	static final int ARRAY = 2;
+	static final int CUSTOM_SIMPLE = 3;
+
+	private final Map<String,Integer> kinds = new ConcurrentHashMap<>();
+
+	private volatile String prefix = "";
+	private volatile String replacement = "";
+
+	boolean is(String type, int kind, Predicate<String> classifier) {
+		checkPrefix();
+
+		int known = 1 << (2*kind);
+		int value = 1 << (2*kind+1);
+
+		Integer flags = kinds.get(type);
+		if(flags!=null && (flags & known)!=0) return (flags & value)!=0;
+
+		boolean res = classifier.test(type);
+
+		if(APIModel.getDefinition(type)!=null) {
+			int update = known | (res ? value : 0);
+			kinds.merge(type, update, (a,b) -> a | b);
+		}
+
+		return res;
+	}
+
+	void clear() {
+		kinds.clear();
+	}
+
+	private void checkPrefix() {
+		String currentPrefix = Config.getPrefixToRemove();
+		String currentReplacement = Config.getPrefixToReplace();
+		if(!currentPrefix.equals(prefix) || !currentReplacement.equals(replacement)) {
+			kinds.clear();
+			prefix = currentPrefix;
+			replacement = currentReplacement;
+		}
+	}
+
+}
@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -65,6 +66,7 @@ public class Config {
 	@LogMethod(level=LogLevel.TRACE)
     public static void forceConfig() {
     	initStatus=false;
+    	configurationChanged();
     	getConfig();
     }
     
@@ -86,9 +88,10 @@ public class Config {
     
     public static void reset() {
     	configFiles = new LinkedList<>();
+    	configurationChanged();
     }
     
-    public static void init() {
+    public static synchronized void init() {
     	if(initStatus) return;
     	initStatus = true;
 
@@ -190,6 +193,7 @@ public class Config {
 	    for(String key : deltaJSON.keySet()) {	    	
 	    	json.put(key, deltaJSON.get(key));
 	    }	   	
+	    configurationChanged();
 	}
 	
 	@LogMethod(level=LogLevel.TRACE)
@@ -214,7 +218,30 @@ public class Config {
 	
 	@LogMethod(level=LogLevel.TRACE)
 	public static boolean getBoolean(String property) {
-		return json.optBoolean(property);
+		return snapshot().getBoolean(property);
+	}
+
+	private static volatile ConfigSnapshot snapshot = null;
+	private static final AtomicLong version = new AtomicLong();
+
+	/*
+	 * Typed view of frequently used configuration values, rebuilt after any configuration change
+	 */
+	public static ConfigSnapshot snapshot() {
+		ConfigSnapshot res = snapshot;
+		if(res==null) {
+			long current = version.get();
+			res = new ConfigSnapshot(readSimpleTypes(), readSimpleEndings(), readNonSimpleEndings(),
+									 property -> json.optBoolean(property), Config::readBaseTypesForResource);
+			if(version.get()==current) snapshot = res;
+		}
+		return res;
+	}
+
+	private static void configurationChanged() {
+		version.incrementAndGet();
+		snapshot = null;
+		PatternRegistry.clear();
 	}
 
 	@LogMethod(level=LogLevel.TRACE)
@@ -378,6 +405,7 @@ public class Config {
 
 	public static void setBoolean(String key, boolean value) {
 		json.put(key, value);
+		configurationChanged();
 	}
 
 	public static Map<String, String> getTypeMapping() {
@@ -402,6 +430,10 @@ public class Config {
 	
 	@LogMethod(level=LogLevel.TRACE)
 	public static List<String> getSimpleTypes() {
+		return new LinkedList<>(snapshot().getSimpleTypes());
+	}
+
+	private static List<String> readSimpleTypes() {
 		if(has("simpleTypes")) {
 			return get("simpleTypes");
 		} else {
@@ -412,6 +444,10 @@ public class Config {
 	
 	@LogMethod(level=LogLevel.TRACE)
 	public static List<String> getSimpleEndings() {
+		return new LinkedList<>(snapshot().getSimpleEndings());
+	}
+
+	private static List<String> readSimpleEndings() {
 		if(has("simpleEndings")) {
 			return get("simpleEndings");
 		} else {
@@ -421,6 +457,10 @@ public class Config {
 
 	@LogMethod(level=LogLevel.TRACE)
 	public static List<String> getNonSimpleEndings() {
+		return new LinkedList<>(snapshot().getNonSimpleEndings());
+	}
+
+	private static List<String> readNonSimpleEndings() {
 		if(has("nonSimpleEndings")) {
 			return get("nonSimpleEndings");
 		} else {
@@ -461,6 +501,10 @@ public class Config {
 	
 	@LogMethod(level=LogLevel.TRACE)
 	public static List<String> getBaseTypesForResource(String resource) {
+		return new LinkedList<>(snapshot().getBaseTypesForResource(resource));
+	}
+
+	private static List<String> readBaseTypesForResource(String resource) {
 		List<String> res = new LinkedList<>();
 		JSONObject baseTypeConfig = getJSONObject("baseTypes");
 		
@@ -613,6 +657,7 @@ public class Config {
 				JSONObject config = enum_config.optJSONObject("orphan-enums-by-resource");
 				if(config!=null) {
 					json.put("orphan-enums-by-resource", config);
+					configurationChanged();
 					resources.addAll( config.keySet().stream()
 										.filter(item -> !resources.contains(item))
 										.collect(toList()));
@@ -620,6 +665,7 @@ public class Config {
 				}
 
 				if(!resources.isEmpty()) json.put("orphan-enums", resources);
+				configurationChanged();
 
 			}
 			
@@ -738,6 +784,7 @@ public class Config {
 			 for(String key : args.keySet() ) {
 				 json.put(key, args.get(key));
 			 }
+			 configurationChanged();
 		}
 	}
 
@@ -862,6 +909,7 @@ public class Config {
 	@LogMethod(level=LogLevel.TRACE)
 	private static void set(String label, Object value) {
 		json.put(label,value);
+		configurationChanged();
 	}
 
 	@LogMethod(level=LogLevel.TRACE)
@@ -892,6 +940,14 @@ public class Config {
 		return get("subClassExcludeRegexp");
 	}
 
+	public static Predicate<String> getFlattenInheritanceMatcher() {
+		return PatternRegistry.getMatcher("coreInheritanceRegexp");
+	}
+	
+	public static Predicate<String> getSubClassesExcludeMatcher() {
+		return PatternRegistry.getMatcher("subClassExcludeRegexp");
+	}
+
 	public static int getInteger(String property) {
 		try {
 			String s = getString(property);
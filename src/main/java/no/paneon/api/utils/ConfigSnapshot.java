@@ -0,0 +1,79 @@
+package no.paneon.api.utils;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/*
+ * Immutable, typed view of configuration values used on hot paths.
+ * Built on first use by Config.snapshot() and replaced whenever the configuration changes.
+ */
+public class ConfigSnapshot {
+
+	private final Set<String> simpleTypes;
+	private final List<String> simpleTypesList;
+	private final List<String> simpleEndings;
+	private final List<String> nonSimpleEndings;
+
+	private final Function<String,Boolean> booleanReader;
+	private final Function<String,List<String>> baseTypesReader;
+
+	private final Map<String,Boolean> booleans = new ConcurrentHashMap<>();
+	private final Map<String,List<String>> baseTypes = new ConcurrentHashMap<>();
+
+	ConfigSnapshot(List<String> simpleTypes, List<String> simpleEndings, List<String> nonSimpleEndings,
+				   Function<String,Boolean> booleanReader, Function<String,List<String>> baseTypesReader) {
+
+		this.simpleTypesList = Collections.unmodifiableList(simpleTypes);
+		this.simpleTypes = Collections.unmodifiableSet(new HashSet<>(simpleTypes));
+		this.simpleEndings = Collections.unmodifiableList(simpleEndings);
+		this.nonSimpleEndings = Collections.unmodifiableList(nonSimpleEndings);
+
+		this.booleanReader = booleanReader;
+		this.baseTypesReader = baseTypesReader;
+	}
+
+	public boolean getBoolean(String property) {
+		return booleans.computeIfAbsent(property, booleanReader);
+	}
+
+	public List<String> getSimpleTypes() {
+		return simpleTypesList;
+	}
+
+	public boolean isSimpleType(String type) {
+		return simpleTypes.contains(type);
+	}
+
+	public List<String> getSimpleEndings() {
+		return simpleEndings;
+	}
+
+	public boolean hasSimpleEnding(String type) {
+		return endsWithAny(type, simpleEndings);
+	}
+
+	public List<String> getNonSimpleEndings() {
+		return nonSimpleEndings;
+	}
+
+	public boolean hasNonSimpleEnding(String type) {
+		return endsWithAny(type, nonSimpleEndings);
+	}
+
+	public List<String> getBaseTypesForResource(String resource) {
+		return baseTypes.computeIfAbsent(resource, r -> Collections.unmodifiableList(baseTypesReader.apply(r)));
+	}
+
+	private static boolean endsWithAny(String type, List<String> endings) {
+		for(String ending : endings) {
+			if(type.endsWith(ending)) return true;
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,171 @@
+package no.paneon.api.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Optional;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONObject;
+
+import no.paneon.api.logging.LogMethod;
+import no.paneon.api.logging.AspectLogger.LogLevel;
+
+/*
+ * Persistent cache of parsed documents retrieved from web sources.
+ *
+ * Entries are keyed by the resolved URL and hold the parsed document as JSON together with
+ * the ETag / Last-Modified validators of the response. Cached entries are revalidated with a
+ * conditional request, or served directly when running in offline mode. The cached copy is also
+ * used when the server cannot be reached, but not when it answers with an HTTP error status.
+ */
+public class DocumentCache {
+
+	static final Logger LOG = LogManager.getLogger(DocumentCache.class);
+
+	static final String CACHE_DIRECTORY = "externalCacheDirectory";
+	static final String CACHE_OFFLINE = "externalCacheOffline";
+
+	private static final String DOCUMENT_SUFFIX = ".json";
+	private static final String META_SUFFIX = ".meta.json";
+
+	private static final String URL = "url";
+	private static final String ETAG = "etag";
+	private static final String LAST_MODIFIED = "lastModified";
+
+	private DocumentCache() {
+	}
+
+	public static boolean isEnabled() {
+		return !getDirectory().isEmpty();
+	}
+
+	public static boolean isOffline() {
+		return Config.has(CACHE_OFFLINE) && Config.getBoolean(CACHE_OFFLINE);
+	}
+
+	private static String getDirectory() {
+		return Config.has(CACHE_DIRECTORY) ? Config.getString(CACHE_DIRECTORY).replaceFirst("^~", System.getProperty("user.home")) : "";
+	}
+
+	@LogMethod(level=LogLevel.DEBUG)
+	public static JSONObject read(String source, boolean isYaml) throws AppException {
+
+		source = source.replace("\\", "/");
+
+		String key = getKey(source);
+		Path document = Path.of(getDirectory(), key + DOCUMENT_SUFFIX);
+		Path meta = Path.of(getDirectory(), key + META_SUFFIX);
+
+		Optional<JSONObject> cached = readCached(document, meta);
+
+		if(isOffline()) {
+			if(cached.isPresent()) return cached.get();
+			throw new AppException("offline mode: no cached copy of " + source);
+		}
+
+		try {
+			URLConnection conn = new URI(source).toURL().openConnection();
+			HttpURLConnection http = conn instanceof HttpURLConnection ? (HttpURLConnection) conn : null;
+
+			JSONObject validators = cached.isPresent() ? readJSON(meta) : new JSONObject();
+			if(cached.isPresent() && http!=null) {
+				if(validators.has(ETAG)) conn.setRequestProperty("If-None-Match", validators.getString(ETAG));
+				if(validators.has(LAST_MODIFIED)) conn.setRequestProperty("If-Modified-Since", validators.getString(LAST_MODIFIED));
+			}
+
+			if(http!=null) {
+				int status = http.getResponseCode();
+				if(cached.isPresent() && status==HttpURLConnection.HTTP_NOT_MODIFIED) {
+					LOG.debug("read: not modified source={}", source);
+					return cached.get();
+				}
+				if(status>=HttpURLConnection.HTTP_BAD_REQUEST) {
+					throw new AppException("unable to read " + source + ": HTTP status " + status);
+				}
+			}
+
+			String content;
+			try(InputStream is = conn.getInputStream()) {
+				content = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+			}
+
+			JSONObject res = new JSONObject(isYaml ? Utils.convertYamlToJson(content) : content);
+
+			JSONObject metadata = new JSONObject();
+			metadata.put(URL, source);
+			if(conn.getHeaderField("ETag")!=null) metadata.put(ETAG, conn.getHeaderField("ETag"));
+			if(conn.getHeaderField("Last-Modified")!=null) metadata.put(LAST_MODIFIED, conn.getHeaderField("Last-Modified"));
+
+			store(document, res, meta, metadata);
+
+			return res;
+
+		} catch(AppException ex) {
+			throw ex;
+		} catch(IOException ex) {
+			// the server could not be reached, HTTP error statuses are not retried from the cache
+			if(cached.isPresent()) {
+				LOG.debug("read: using cached copy of source={} exception={}", source, ex.getLocalizedMessage());
+				return cached.get();
+			}
+			throw new AppException(ex.getLocalizedMessage());
+		} catch(Exception ex) {
+			throw new AppException(ex.getLocalizedMessage());
+		}
+	}
+
+	private static Optional<JSONObject> readCached(Path document, Path meta) {
+		if(!Files.exists(document) || !Files.exists(meta)) return Optional.empty();
+		try {
+			return Optional.of(readJSON(document));
+		} catch(Exception ex) {
+			LOG.debug("readCached: unable to read {} exception={}", document, ex.getLocalizedMessage());
+			return Optional.empty();
+		}
+	}
+
+	private static JSONObject readJSON(Path path) throws Exception {
+		return new JSONObject(Files.readString(path, StandardCharsets.UTF_8));
+	}
+
+	private static void store(Path document, JSONObject res, Path meta, JSONObject metadata) {
+		try {
+			write(document, res.toString());
+			write(meta, metadata.toString(2));
+		} catch(Exception ex) {
+			LOG.debug("store: unable to write {} exception={}", document, ex.getLocalizedMessage());
+		}
+	}
+
+	private static void write(Path path, String content) throws Exception {
+		File dir = path.getParent().toFile();
+		if(!dir.exists()) dir.mkdirs();
+
+		Path tmp = Files.createTempFile(path.getParent(), "cache", ".tmp");
+		Files.writeString(tmp, content, StandardCharsets.UTF_8);
+		Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	static String getKey(String source) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] hash = digest.digest(source.getBytes(StandardCharsets.UTF_8));
+			StringBuilder res = new StringBuilder();
+			for(byte b : hash) res.append(String.format("%02x", b));
+			return res.toString();
+		} catch(Exception ex) {
+			return Integer.toHexString(source.hashCode());
+		}
+	}
+
+}
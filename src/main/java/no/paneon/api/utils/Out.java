@@ -1,5 +1,6 @@
 package no.paneon.api.utils;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -49,12 +50,11 @@ public class Out {
 		LOG.log(AspectLogger.VERBOSE, format, args);
 	}
 
-	static Set<String> printedOnce = new HashSet<>();
+	static Set<String> printedOnce = Collections.synchronizedSet(new HashSet<>());
 	public static void printOnce(String format,  Object ...args) {
 		format = format.replace("{}", "%s");		
 		String res = String.format(format,args);
-		if(!printedOnce.contains(res)) {
-			printedOnce.add(res);
+		if(printedOnce.add(res)) {
 			printAlways(res);
 		}
 	}
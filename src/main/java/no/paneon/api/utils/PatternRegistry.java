@@ -0,0 +1,55 @@
+package no.paneon.api.utils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/*
+ * Compiled regular expressions used with the configuration.
+ * Entries derived from configuration properties are dropped whenever the configuration changes.
+ */
+public class PatternRegistry {
+
+	private static final Map<String,Pattern> patterns = new ConcurrentHashMap<>();
+	private static final Map<String,Predicate<String>> matchers = new ConcurrentHashMap<>();
+
+	private static final Predicate<String> NONE = s -> false;
+
+	private PatternRegistry() {
+	}
+
+	public static Pattern compile(String regexp) {
+		return patterns.computeIfAbsent(regexp, Pattern::compile);
+	}
+
+	/*
+	 * Predicate for the list of regular expressions in the configuration property,
+	 * true if any of them matches the complete argument (as String.matches)
+	 */
+	public static Predicate<String> getMatcher(String property) {
+		return matchers.computeIfAbsent(property, PatternRegistry::createMatcher);
+	}
+
+	public static void clear() {
+		matchers.clear();
+		patterns.clear();
+	}
+
+	private static Predicate<String> createMatcher(String property) {
+		List<Pattern> compiled = Config.get(property).stream().map(PatternRegistry::compile).collect(Collectors.toList());
+
+		if(compiled.isEmpty()) return NONE;
+
+		Pattern[] array = compiled.toArray(new Pattern[0]);
+		return s -> {
+			for(Pattern pattern : array) {
+				if(pattern.matcher(s).matches()) return true;
+			}
+			return false;
+		};
+	}
+
+}
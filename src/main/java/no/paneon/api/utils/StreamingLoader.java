@@ -0,0 +1,145 @@
+package no.paneon.api.utils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import no.paneon.api.logging.LogMethod;
+import no.paneon.api.logging.AspectLogger.LogLevel;
+
+/*
+ * Builds org.json trees directly from the token stream of a Jackson JSON or YAML parser,
+ * without first reading the document into a String or converting YAML to JSON text
+ */
+public class StreamingLoader {
+
+	static final Logger LOG = LogManager.getLogger(StreamingLoader.class);
+
+	/*
+	 * The streams are closed by the callers that opened them. Duplicate keys in JSON are rejected, as by org.json
+	 */
+	private static final JsonFactory jsonFactory = JsonFactory.builder()
+			.enable(JsonReadFeature.ALLOW_JAVA_COMMENTS)
+			.enable(JsonReadFeature.ALLOW_SINGLE_QUOTES)
+			.enable(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES)
+			.enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+			.enable(StreamReadFeature.STRICT_DUPLICATE_DETECTION)
+			.disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+			.build();
+	private static final YAMLFactory yamlFactory = YAMLFactory.builder()
+			.disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+			.build();
+
+	private static final int DETECT_LIMIT = 300;
+
+	private StreamingLoader() {
+	}
+
+	@LogMethod(level=LogLevel.TRACE)
+	public static JSONObject read(String fileName, boolean isYaml) throws IOException {
+		String path = fileName.replaceFirst("^~", System.getProperty("user.home"));
+		try(InputStream is = new FileInputStream(new File(path))) {
+			return read(is, isYaml);
+		}
+	}
+
+	@LogMethod(level=LogLevel.TRACE)
+	public static JSONObject readJSONOrYaml(InputStream is) throws IOException {
+		BufferedInputStream in = new BufferedInputStream(is);
+		return read(in, isYaml(in));
+	}
+
+	@LogMethod(level=LogLevel.TRACE)
+	public static JSONObject read(InputStream is, boolean isYaml) throws IOException {
+		try(JsonParser parser = isYaml ? yamlFactory.createParser(is) : jsonFactory.createParser(is)) {
+			JsonToken token = parser.nextToken();
+			if(token!=JsonToken.START_OBJECT) {
+				throw new IOException("expected an object at the top level, found " + token);
+			}
+			return readObject(parser);
+		}
+	}
+
+	/*
+	 * JSON if the first non-blank character is a brace, or the stream starts with a bracket
+	 */
+	private static boolean isYaml(BufferedInputStream in) throws IOException {
+		in.mark(DETECT_LIMIT);
+		try {
+			for(int i=0; i<DETECT_LIMIT; i++) {
+				int c = in.read();
+				if(c==' ') continue;
+				return c!='{' && !(c=='[' && i==0);
+			}
+			return true;
+		} finally {
+			in.reset();
+		}
+	}
+
+	private static JSONObject readObject(JsonParser parser) throws IOException {
+		JSONObject res = new JSONObject();
+		JsonToken token;
+		while((token=parser.nextToken())==JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			parser.nextToken();
+			res.put(name, readValue(parser));
+		}
+		if(token!=JsonToken.END_OBJECT) throw new IOException("unexpected token " + token);
+		return res;
+	}
+
+	private static JSONArray readArray(JsonParser parser) throws IOException {
+		JSONArray res = new JSONArray();
+		JsonToken token;
+		while((token=parser.nextToken())!=JsonToken.END_ARRAY) {
+			if(token==null) throw new IOException("unexpected end of input");
+			res.put(readValue(parser));
+		}
+		return res;
+	}
+
+	private static Object readValue(JsonParser parser) throws IOException {
+		JsonToken token = parser.currentToken();
+		if(token==null) throw new IOException("unexpected end of input");
+
+		switch(token) {
+		case START_OBJECT:
+			return readObject(parser);
+		case START_ARRAY:
+			return readArray(parser);
+		case VALUE_STRING:
+			return parser.getText();
+		case VALUE_NUMBER_INT:
+			return parser.getNumberValue();
+		case VALUE_NUMBER_FLOAT:
+			return parser.getDoubleValue();
+		case VALUE_TRUE:
+			return Boolean.TRUE;
+		case VALUE_FALSE:
+			return Boolean.FALSE;
+		case VALUE_NULL:
+			return JSONObject.NULL;
+		case VALUE_EMBEDDED_OBJECT:
+			Object embedded = parser.getEmbeddedObject();
+			return embedded!=null ? embedded.toString() : JSONObject.NULL;
+		default:
+			throw new IOException("unexpected token " + token);
+		}
+	}
+
+}
@@ -50,6 +50,7 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 import org.springframework.core.io.ClassPathResource;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -100,21 +101,15 @@ public class Utils {
 	@LogMethod(level=LogLevel.TRACE)
 	public static boolean isSimpleType(String type) {
 		boolean res=false;
-	    List<String> simpleTypes = Config.getSimpleTypes(); 
-    
-	    List<String> simpleEndings = Config.getSimpleEndings();       
-	    List<String> nonSimpleEndings = Config.getNonSimpleEndings();
+	    ConfigSnapshot config = Config.snapshot(); 
 	    
         if(APIModel.isEnumType(type)) {
         	res=true;
         }
-        else if(simpleTypes.contains(type)) {
+        else if(config.isSimpleType(type)) {
 	        res=true;
 	    } else {
-	        boolean nonSimple=nonSimpleEndings.stream().anyMatch(type::endsWith);
-	        if(nonSimple) res=false;
-	
-	        res=simpleEndings.stream().anyMatch(type::endsWith);
+	        res=config.hasSimpleEnding(type);
 	    }
         
         Out.debug("isSimpleType: type={} res={}", type, res);
@@ -183,28 +178,34 @@ public class Utils {
 				res = readJSON(source,false);
 			}
 		} catch(Exception e) {
-			Out.println("... unable to read source " + getBaseFileName(source) + " (error: " + e.getLocalizedMessage() + ")");
-			// e.printStackTrace();
-			System.exit(0);
+			exitUnreadable(source, e.getLocalizedMessage());
 		}
 		return res;
 	}
 	
+	/*
+	 * Reports a source that cannot be read and ends the run
+	 */
+	public static void exitUnreadable(String source, String error) {
+		Out.println("... unable to read source " + getBaseFileName(source) + " (error: " + error + ")");
+		// e.printStackTrace();
+		System.exit(0);
+	}
+	
+	@LogMethod(level=LogLevel.TRACE)
+	public static JSONObject readJSONOrYaml(String source, boolean errorOK) throws AppException {
+		if(source.endsWith(".yaml") || source.endsWith(".yml")) {
+			return readYamlAsJSON(source,errorOK);
+		} else {
+			return readJSON(source,errorOK);
+		}
+	}
+	
 	@LogMethod(level=LogLevel.TRACE)
 	public static JSONObject readJSONOrYaml(InputStream file) {
 		JSONObject res = null;
 		try {
-	        String content = IOUtils.toString(file, StandardCharsets.UTF_8); 
-	        
-	        if(!content.isEmpty()) {
-	        	LOG.debug("readJSONOrYaml: content={}", content.subSequence(0, Math.min(30,  content.length()-1)));
-	        }
-	        
-	        if(isYaml(content)) {
-	        	res = convertYamlAsJSON(content,false);
-	        } else {
-				res = convertJSON(content,false);
-	        }
+	        res = StreamingLoader.readJSONOrYaml(file);
 	        
 		} catch(Exception e) {
 			Out.println("... unable to read source: : error: " + e.getLocalizedMessage() );
@@ -214,10 +215,6 @@ public class Utils {
 		return res;
 	}
 	
-	private static boolean isYaml(String content) {
-		String prefix = content.substring(0, Math.min(300, content.length())).replaceAll(" ", "");
-		return !prefix.startsWith("{") && !content.startsWith("[");
-	} 
 
 	@LogMethod(level=LogLevel.TRACE)
 	public static String getBaseFileName(String file) {
@@ -1119,6 +1116,10 @@ public class Utils {
 	@LogMethod(level=LogLevel.TRACE)
 	public static JSONObject readJSON(String source, boolean errorOK) throws AppException {
 		
+		if(isWebSource(source) && DocumentCache.isEnabled()) {
+			return readCached(source, false, errorOK);
+		}
+		
 		String content;
 
 		try {
@@ -1137,9 +1138,7 @@ public class Utils {
 			} else {
 				LOG.debug("fileSource readJSON::source={}", source );
 
-				String path = source.replaceFirst("^~", System.getProperty("user.home"));
-		        File file = new File(path);
-		        content = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+				return readStreaming(source, false, errorOK);
 
 			}
 	        
@@ -1162,6 +1161,11 @@ public class Utils {
 	
 	@LogMethod(level=LogLevel.TRACE)
 	public static JSONObject readYamlAsJSON(String source, boolean errorOK) throws AppException {
+		
+		if(isWebSource(source) && DocumentCache.isEnabled()) {
+			return readCached(source, true, errorOK);
+		}
+		
 		try {
 			String yaml;
 			
@@ -1175,10 +1179,7 @@ public class Utils {
 			    yaml = new String(is.readAllBytes(), StandardCharsets.UTF_8);
 		        		        
 			} else {
-				String path = source.replaceFirst("^~", System.getProperty("user.home"));
-		        File file = new File(path);
-		        yaml = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
-
+				return readStreaming(source, true, errorOK);
 			}
 			
 	        String json = convertYamlToJson(yaml);
@@ -1193,6 +1194,31 @@ public class Utils {
 		}
     }
 	
+	private static JSONObject readStreaming(String source, boolean isYaml, boolean errorOK) throws AppException {
+		try {
+			return StreamingLoader.read(source, isYaml);
+		} catch(JsonProcessingException ex) {
+			if(!isYaml) Out.printAlways("... error when reading JSON: {}", ex.getLocalizedMessage() );
+			if(LOG.isDebugEnabled()) LOG.log(Level.DEBUG, EXCEPTION_MESSAGE, ex.getLocalizedMessage() );
+			if(!errorOK) throw(new AppException(ex.getLocalizedMessage()));
+			return new JSONObject();
+		} catch(Exception ex) {
+			if(LOG.isDebugEnabled()) LOG.log(Level.DEBUG, EXCEPTION_MESSAGE, ex.getLocalizedMessage() );
+			if(!errorOK) throw(new AppException(ex.getLocalizedMessage()));
+			return new JSONObject();
+		}
+	}
+	
+	private static JSONObject readCached(String source, boolean isYaml, boolean errorOK) throws AppException {
+		try {
+			return DocumentCache.read(source, isYaml);
+		} catch(AppException ex) {
+			LOG.debug("... ERROR readCached source={} exception={}", source, ex.getLocalizedMessage() );
+			if(!errorOK) throw(ex);
+			return new JSONObject();
+		}
+	}
+	
 	private static boolean isWebSource(String source) {
 		boolean res=false;
 		try {
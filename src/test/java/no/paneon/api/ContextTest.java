@@ -0,0 +1,80 @@
+package no.paneon.api;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.*;
+
+import no.paneon.api.graph.CoreAPIGraph;
+import no.paneon.api.graph.Node;
+import no.paneon.api.model.APIModel;
+import no.paneon.api.model.APIModelContext;
+
+public class ContextTest  {
+
+	public ContextTest() {
+	}
+
+    static String oas2 = "./src/test/resources/TMF620-ProductCatalog-v4.1.0.swagger.json";
+    static String oas3 = "./src/test/resources/Quote_Management_5.0.0_oas.yaml";
+
+    @AfterClass
+    public static void runOnceAfterClass() {
+        APIModel.clean();
+    }
+
+    @Test
+    public void checkParallelContexts() {
+
+    	CompletableFuture<APIModelContext> f2 = CompletableFuture.supplyAsync(() -> APIModel.loadContext(oas2));
+    	CompletableFuture<APIModelContext> f3 = CompletableFuture.supplyAsync(() -> APIModel.loadContext(oas3));
+
+    	APIModelContext catalog = f2.join();
+    	APIModelContext quote = f3.join();
+
+    	List<String> catalogDefinitions = catalog.call(APIModel::getAllDefinitions);
+    	List<String> quoteDefinitions = quote.call(APIModel::getAllDefinitions);
+
+    	assert(catalogDefinitions.contains("Catalog"));
+    	assert(!catalogDefinitions.contains("Quote"));
+
+    	assert(quoteDefinitions.contains("Quote"));
+    	assert(!quoteDefinitions.contains("Catalog"));
+
+    	CompletableFuture<CoreAPIGraph> g2 = CompletableFuture.supplyAsync(() -> new CoreAPIGraph(catalog, catalog.call(APIModel::getCoreResources)));
+    	CompletableFuture<CoreAPIGraph> g3 = CompletableFuture.supplyAsync(() -> new CoreAPIGraph(quote, quote.call(APIModel::getCoreResources)));
+
+    	assert(g2.join().getNode("Catalog")!=null);
+    	assert(g3.join().getNode("Quote")!=null);
+
+    	Node node = g3.join().getNode("Quote");
+
+    	assert(CompletableFuture.supplyAsync(() -> node.isEnumType("GcQuoteStateType")).join());
+    	assert(!CompletableFuture.supplyAsync(() -> g2.join().getNode("Catalog").isEnumType("GcQuoteStateType")).join());
+
+    }
+
+    @Test
+    public void checkNodeIdsPerContext() {
+    	APIModelContext catalog = APIModel.loadContext(oas2);
+    	APIModelContext quote = APIModel.loadContext(oas3);
+
+    	Node catalogNode = new CoreAPIGraph(catalog, catalog.call(APIModel::getCoreResources)).getNode("Catalog");
+    	Node quoteNode = new CoreAPIGraph(quote, quote.call(APIModel::getCoreResources)).getNode("Quote");
+
+    	Node relatedParty = new Node(catalog, "RelatedParty");
+    	Node otherRelatedParty = new Node(quote, "RelatedParty");
+
+    	assert(relatedParty.equals(otherRelatedParty) && otherRelatedParty.equals(relatedParty));
+    	assert(relatedParty.equals(new Node(catalog, "RelatedParty")));
+    	assert(!catalogNode.equals(quoteNode));
+    	assert(catalogNode.getId()!=relatedParty.getId());
+
+    	catalog.run(APIModel::clean);
+
+    	Node afterClean = new Node(catalog, "RelatedParty");
+    	assert(afterClean.getId()==0);
+    	assert(afterClean.equals(relatedParty) && !afterClean.equals(catalogNode));
+    }
+
+}
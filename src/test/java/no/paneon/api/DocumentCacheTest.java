@@ -0,0 +1,138 @@
+package no.paneon.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.io.FileUtils;
+import org.json.JSONObject;
+import org.junit.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import no.paneon.api.utils.AppException;
+import no.paneon.api.utils.Config;
+import no.paneon.api.utils.DocumentCache;
+
+public class DocumentCacheTest  {
+
+	static final String ETAG = "\"v1\"";
+	static final String LAST_MODIFIED = "Wed, 01 Jan 2025 00:00:00 GMT";
+	static final String DOCUMENT = "{ \"type\": \"object\", \"description\": \"cached\" }";
+
+	HttpServer server;
+	Path cache;
+
+	List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+	List<String> ifModifiedSince = new CopyOnWriteArrayList<>();
+	List<Integer> statuses = new CopyOnWriteArrayList<>();
+
+	volatile int errorStatus = 0;
+
+	public DocumentCacheTest() {
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		Config.init();
+
+		cache = Files.createTempDirectory("document-cache");
+		Config.addConfiguration(new JSONObject().put("externalCacheDirectory", cache.toString()).put("externalCacheOffline", false));
+
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/doc.json", this::handle);
+		server.start();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if(server!=null) server.stop(0);
+		Config.addConfiguration(new JSONObject().put("externalCacheDirectory", "").put("externalCacheOffline", false));
+		FileUtils.deleteDirectory(cache.toFile());
+	}
+
+	/*
+	 * Serves DOCUMENT with validators, 304 when the request has a matching If-None-Match,
+	 * and errorStatus instead when set
+	 */
+	private void handle(HttpExchange exchange) throws IOException {
+		String etag = exchange.getRequestHeaders().getFirst("If-None-Match");
+		String since = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+		ifNoneMatch.add(String.valueOf(etag));
+		ifModifiedSince.add(String.valueOf(since));
+
+		if(errorStatus>0) {
+			reply(exchange, errorStatus, null);
+		} else if(ETAG.equals(etag)) {
+			reply(exchange, 304, null);
+		} else {
+			exchange.getResponseHeaders().add("ETag", ETAG);
+			exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+			reply(exchange, 200, DOCUMENT);
+		}
+	}
+
+	private void reply(HttpExchange exchange, int status, String body) throws IOException {
+		statuses.add(status);
+		byte[] bytes = body!=null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+		exchange.sendResponseHeaders(status, bytes.length>0 ? bytes.length : -1);
+		try(OutputStream os = exchange.getResponseBody()) {
+			os.write(bytes);
+		}
+	}
+
+	private String source() {
+		return "http://localhost:" + server.getAddress().getPort() + "/doc.json";
+	}
+
+	@Test
+	public void checkConditionalRequest() throws Exception {
+		String source = source();
+
+		JSONObject fetched = DocumentCache.read(source, false);
+		assert(fetched.similar(new JSONObject(DOCUMENT)));
+		assert(ifNoneMatch.get(0).equals("null"));
+
+		JSONObject revalidated = DocumentCache.read(source, false);
+		assert(revalidated.similar(fetched));
+
+		assert(ifNoneMatch.get(1).equals(ETAG));
+		assert(ifModifiedSince.get(1).equals(LAST_MODIFIED));
+		assert(statuses.get(1)==304);
+	}
+
+	@Test
+	public void checkErrorStatusNotServedFromCache() throws Exception {
+		String source = source();
+
+		DocumentCache.read(source, false);
+
+		errorStatus = 404;
+		boolean failed = false;
+		try {
+			DocumentCache.read(source, false);
+		} catch(AppException ex) {
+			failed = ex.getLocalizedMessage().contains("404");
+		}
+		assert(failed);
+	}
+
+	@Test
+	public void checkUnreachableServedFromCache() throws Exception {
+		String source = source();
+
+		JSONObject fetched = DocumentCache.read(source, false);
+
+		server.stop(0);
+		server = null;
+
+		assert(DocumentCache.read(source, false).similar(fetched));
+	}
+
+}
@@ -2,19 +2,41 @@ package no.paneon.api;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.http.HttpTester;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.servlet.DefaultServlet;
+import org.eclipse.jetty.servlet.FilterHolder;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
 import org.json.JSONObject;
@@ -27,6 +49,8 @@ import org.junit.Test;
 import no.paneon.api.graph.CoreAPIGraph;
 import no.paneon.api.graph.Node;
 import no.paneon.api.model.APIModel;
+import no.paneon.api.model.APIModelContext;
+import no.paneon.api.model.ExternalReferencePrefetch;
 import no.paneon.api.utils.Config;
 import no.paneon.api.utils.Out;
 import no.paneon.api.utils.Utils;
@@ -39,6 +63,12 @@ public class ExternalServerTest {
 	static Server server;
 	
 	static String RESOURCES = "src/test/resources/";
+	
+	static RequestCounter requests = new RequestCounter();
+	
+	static final String PREFETCH_SOURCE = "http://localhost:8080/prefetch/api.json";
+	static final Set<String> PREFETCH_DOCUMENTS = new HashSet<>(Arrays.asList(
+			"Order.json", "OrderItem.json", "Customer.json", "Address.json", "Payment.json", "Shipment.json"));
 
 	@BeforeClass
 	static public void setUp() throws Exception {
@@ -55,6 +85,7 @@ public class ExternalServerTest {
 	    defaultServ.setInitParameter("dirAllowed","true");
 	    
 	    context.addServlet(defaultServ,"/");
+	    context.addFilter(new FilterHolder(requests), "/prefetch/*", EnumSet.of(DispatcherType.REQUEST));
 	    server.setHandler(context);
 
 	    server.start();
@@ -170,6 +201,152 @@ public class ExternalServerTest {
 
 	}
 	
+	@Test
+	public void testPrefetch() throws Exception {
+		String source = "http://localhost:8080/ordering-api.swagger.json";
+		
+		JSONObject api = Utils.readJSONOrYaml(source);
+		
+		Map<String,JSONObject> externals = ExternalReferencePrefetch.prefetch(api, source, new HashSet<>(), 4);
+		
+		assert(externals.containsKey("TMF622/ProductOrder.json"));
+		assert(!externals.get("TMF622/ProductOrder.json").isEmpty());
+
+	}
+	
+	@Test
+	public void testPrefetchParallel() throws Exception {
+		JSONObject api = Utils.readJSONOrYaml(PREFETCH_SOURCE);
+		api.getJSONObject("components").getJSONObject("schemas").put("Missing", new JSONObject().put("$ref", "Missing.json"));
+		
+		requests.reset();
+		
+		Map<String,String> failed = new HashMap<>();
+		Map<String,JSONObject> externals = ExternalReferencePrefetch.prefetch(api, PREFETCH_SOURCE, new HashSet<>(), 2, failed);
+		
+		assert(externals.keySet().equals(PREFETCH_DOCUMENTS));
+		assert(failed.keySet().equals(Collections.singleton("Missing.json")));
+		
+		// each document requested once, at most two at a time
+		for(String document : PREFETCH_DOCUMENTS) assert(requests.get(document)==1);
+		assert(requests.get("Missing.json")==1);
+		assert(requests.getMaxInFlight()==2);
+
+	}
+	
+	@Test
+	public void testPrefetchFallback() throws Exception {
+		try {
+			requests.reset();
+			
+			APIModelContext prefetched = APIModel.loadContext(PREFETCH_SOURCE, Utils.getSource(PREFETCH_SOURCE, new LinkedList<>()));
+			prefetched.run(APIModel::getAllDefinitions);
+			
+			// not read again by the sequential resolution
+			for(String document : PREFETCH_DOCUMENTS) assert(requests.get(document)==1);
+			assert(requests.getMaxInFlight()>1);
+			
+			Config.addConfiguration(new JSONObject().put("externalPrefetchParallelism", 0));
+			
+			requests.reset();
+			
+			APIModelContext sequential = APIModel.loadContext(PREFETCH_SOURCE, Utils.getSource(PREFETCH_SOURCE, new LinkedList<>()));
+			sequential.run(APIModel::getAllDefinitions);
+			
+			// the sequential resolution reads the documents it merges, one at a time
+			assert(sequential.getLoadedExternals().contains("Order.json"));
+			assert(PREFETCH_DOCUMENTS.containsAll(sequential.getLoadedExternals()));
+			for(String document : sequential.getLoadedExternals()) assert(requests.get(document)==1);
+			assert(requests.getMaxInFlight()==1);
+			
+			assert(prefetched.getLoadedExternals().equals(PREFETCH_DOCUMENTS));
+			assert(sequential.call(APIModel::getAllDefinitions).equals(prefetched.call(APIModel::getAllDefinitions)));
+
+		} finally {
+			Config.addConfiguration(new JSONObject().put("externalPrefetchParallelism", 8));
+			APIModel.clean();
+		}
+
+	}
+	
+	@Test
+	public void testLazyExternals() throws Exception {
+		String source = "http://localhost:8080/ordering-api.swagger.json";
+		
+		try {
+			Config.setBoolean("lazyExternalReferences", true);
+
+			InputStream is = Utils.getSource(source, new LinkedList<>());
+			APIModel.loadAPI(source, is);
+
+			assert(APIModel.getAllDefinitions().contains("ProductOrder"));
+			assert(APIModel.getCurrentContext().getLoadedExternals().isEmpty());
+
+			assert(APIModel.getProperties("ProductOrder").contains("expectedCompletionDate"));
+			assert(APIModel.getCurrentContext().getLoadedExternals().contains("TMF622/ProductOrder.json"));
+
+		} finally {
+			Config.setBoolean("lazyExternalReferences", false);
+			APIModel.clean();
+		}
+
+	}
+	
+	@Test
+	public void testLazyExternalsConcurrent() throws Exception {
+		String source = "http://localhost:8080/ordering-api.swagger.json";
+		
+		try {
+			Config.setBoolean("lazyExternalReferences", true);
+
+			APIModelContext context = APIModel.loadContext(source, Utils.getSource(source, new LinkedList<>()));
+
+			List<CompletableFuture<Set<String>>> readers = new LinkedList<>();
+			for(int i=0; i<8; i++) {
+				readers.add(CompletableFuture.supplyAsync(() -> context.call(() -> APIModel.getProperties("ProductOrder"))));
+			}
+			
+			for(CompletableFuture<Set<String>> reader : readers) {
+				assert(reader.join().contains("expectedCompletionDate"));
+			}
+			assert(context.getLoadedExternals().contains("TMF622/ProductOrder.json"));
+
+		} finally {
+			Config.setBoolean("lazyExternalReferences", false);
+			APIModel.clean();
+		}
+
+	}
+	
+	@Test
+	public void testDocumentCache() throws Exception {
+		String source = "http://localhost:8080/TMF622/ProductOrder.json";
+		
+		Path cache = Files.createTempDirectory("document-cache");
+		
+		try {
+			Config.addConfiguration(new JSONObject().put("externalCacheDirectory", cache.toString()));
+			
+			JSONObject fetched = Utils.readJSONOrYaml(source);
+			assert(!fetched.isEmpty());
+			
+			JSONObject revalidated = Utils.readJSONOrYaml(source);
+			assert(revalidated.similar(fetched));
+
+			Config.addConfiguration(new JSONObject().put("externalCacheOffline", true));
+
+			JSONObject offline = Utils.readJSONOrYaml(source);
+			assert(offline.similar(fetched));
+
+			assert(Utils.readJSON("http://localhost:8080/missing.json", true).isEmpty());
+
+		} finally {
+			Config.addConfiguration(new JSONObject().put("externalCacheDirectory", "").put("externalCacheOffline", false));
+			FileUtils.deleteDirectory(cache.toFile());
+		}
+
+	}
+	
 	@Test
 	public void testAPI4() throws Exception {
 		String source = RESOURCES + "ordering-api.swagger.json";
@@ -195,6 +372,47 @@ public class ExternalServerTest {
 	}
 	
 	
+	/*
+	 * Requests per document and the largest number served at the same time, 
+	 * each request held long enough for concurrent ones to overlap
+	 */
+	static class RequestCounter implements Filter {
+		
+		final Map<String,AtomicInteger> counts = new ConcurrentHashMap<>();
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger maxInFlight = new AtomicInteger();
+		
+		@Override
+		public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+			String uri = ((HttpServletRequest) request).getRequestURI();
+			counts.computeIfAbsent(uri.substring(uri.lastIndexOf('/')+1), k -> new AtomicInteger()).incrementAndGet();
+			
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(100);
+				chain.doFilter(request, response);
+			} catch(InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			} finally {
+				inFlight.decrementAndGet();
+			}
+		}
+		
+		void reset() {
+			counts.clear();
+			maxInFlight.set(0);
+		}
+		
+		int get(String document) {
+			AtomicInteger count = counts.get(document);
+			return count!=null ? count.get() : 0;
+		}
+		
+		int getMaxInFlight() {
+			return maxInFlight.get();
+		}
+		
+	}
 	
 }
 
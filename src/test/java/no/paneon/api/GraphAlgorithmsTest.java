@@ -0,0 +1,102 @@
+package no.paneon.api;
+
+import java.util.Map;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.*;
+
+import no.paneon.api.graph.complexity.Adjacency;
+import no.paneon.api.graph.complexity.CycleIndex;
+import no.paneon.api.graph.complexity.LongestPaths;
+import no.paneon.api.graph.complexity.ShortestPaths;
+import no.paneon.api.graph.complexity.StronglyConnectedComponents;
+
+public class GraphAlgorithmsTest  {
+
+	public GraphAlgorithmsTest() {
+	}
+
+    static Graph<String,DefaultEdge> graph;
+
+    @BeforeClass
+    public static void runOnceBeforeClass() {
+    	graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+    	for(String node : new String[] {"A", "B", "C", "D", "E", "F"}) graph.addVertex(node);
+
+    	graph.addEdge("A", "B");
+    	graph.addEdge("A", "C");
+    	graph.addEdge("B", "D");
+    	graph.addEdge("C", "D");
+    	graph.addEdge("D", "E");
+    	graph.addEdge("E", "B");
+    	graph.addEdge("F", "A");
+    }
+
+    @Test
+    public void checkShortestPath() {
+    	Adjacency<String,DefaultEdge> adjacency = Adjacency.of(graph);
+
+    	Map<String,Integer> distance = ShortestPaths.unweighted(adjacency, "A").getDistanceMap();
+
+    	assert(distance.get("A")==0);
+    	assert(distance.get("B")==1);
+    	assert(distance.get("D")==2);
+    	assert(distance.get("E")==3);
+    	assert(distance.get("F")==ShortestPaths.UNREACHABLE);
+
+    	Map<String,Integer> weighted = ShortestPaths.weighted(adjacency, "A", edge -> 1).getDistanceMap();
+    	assert(weighted.equals(distance));
+
+    	ShortestPaths<String,DefaultEdge> paths = ShortestPaths.weighted(adjacency, "A", edge -> graph.getEdgeSource(edge).equals("A") && graph.getEdgeTarget(edge).equals("B") ? 5 : 1);
+    	assert(paths.getDistance("B")==4);
+    	assert(paths.getPredecessorMap().get("B").equals("E"));
+    }
+
+    @Test
+    public void checkLongestPath() {
+    	Adjacency<String,DefaultEdge> adjacency = Adjacency.of(graph);
+
+    	StronglyConnectedComponents scc = StronglyConnectedComponents.of(adjacency);
+    	assert(scc.getComponentCount()==4);
+    	assert(scc.getComponent(adjacency.indexOf("B"))==scc.getComponent(adjacency.indexOf("E")));
+    	assert(scc.getComponent(adjacency.indexOf("F"))>scc.getComponent(adjacency.indexOf("A")));
+
+    	Map<String,Integer> longest = LongestPaths.from(adjacency, "A");
+
+    	assert(!longest.containsKey("F"));
+    	assert(longest.get("A")==0);
+    	assert(longest.get("C")==1);
+    	assert(longest.get("B")>=1);
+    	assert(longest.get("E")>=3);
+
+    	assert(LongestPaths.from(adjacency, "F").get("E")>=4);
+    }
+
+    @Test
+    public void checkCycles() {
+    	CycleIndex<String> cycles = CycleIndex.of(graph, "A", node -> true, 0, 0);
+
+    	assert(cycles.getCycles().size()==3);
+    	assert(cycles.getCycles().get(0).size()==4);
+    	assert(cycles.getCycles().get(0).get(0).equals(cycles.getCycles().get(0).get(3)));
+
+    	assert(cycles.contains("E"));
+    	assert(!cycles.contains("F"));
+    	assert(cycles.getCycles("A").size()==2);
+    	assert(cycles.getCyclesBySize("C").keySet().size()==2);
+
+    	assert(CycleIndex.of(graph, "A", node -> true, 4, 0).getCycles().size()==2);
+    	assert(CycleIndex.of(graph, "A", node -> !node.equals("E"), 0, 0).getCycles().size()==1);
+
+    	CycleIndex<String> limited = CycleIndex.of(graph, "A", node -> true, 0, 1);
+    	assert(limited.isTruncated() && limited.getCycles().size()==1);
+
+    	CycleIndex<String> shortOnly = CycleIndex.of(graph, "A", node -> true, 3, 0);
+    	assert(shortOnly.getCycles().size()==1 && shortOnly.getCycles("A").isEmpty());
+    	assert(shortOnly.contains("A") && shortOnly.contains("C") && !shortOnly.contains("F"));
+    	assert(limited.contains("A") && limited.contains("C") && limited.contains("E"));
+    }
+
+}
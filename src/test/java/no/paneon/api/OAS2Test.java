@@ -42,6 +42,19 @@ public class OAS2Test  {
     	    	
     	assert(resources.contains("Catalog"));
     }
-	
-	
+
+    @Test
+    public void checkResourceIndex() {
+    	assert(APIModel.getCoreResources().contains("Category"));
+    	assert(APIModel.getResourceByPath("/category").equals("Category"));
+
+    	List<String> operations = APIModel.getOperationsByResource("Category");
+    	assert(operations.contains("GET"));
+    	assert(operations.contains("DELETE"));
+
+    	assert(APIModel.getResourcesByOperation("POST").contains("Category"));
+    	assert(APIModel.getRequestResourcesByPath("/category", "post").contains("Category_Create"));
+    	assert(APIModel.getSuccessResponseCode("/category", "post").equals("201"));
+    }
+
 }
@@ -6,6 +6,7 @@ import org.junit.*;
 import org.junit.rules.TemporaryFolder;
 
 import no.paneon.api.model.APIModel;
+import no.paneon.api.utils.Config;
 
 public class OAS3Test  {
 
@@ -46,5 +47,22 @@ public class OAS3Test  {
     	
     }
 
+    @Test
+    public void checkPrefixLookup() {
+    	assert(APIModel.getDefinition("ProductStatusType")==null);
+
+    	try {
+    		Config.setPrefixToRemove("^Gc");
+    		
+    		assert(APIModel.getDefinition("ProductStatusType")!=null);
+    		assert(APIModel.getDefinition("ProductStatusType").similar(APIModel.getDefinition("GcProductStatusType")));
+
+    	} finally {
+    		Config.setPrefixToRemove("");
+    	}
+    	
+    	assert(APIModel.getDefinition("ProductStatusType")==null);
+    }
+
 	
 }
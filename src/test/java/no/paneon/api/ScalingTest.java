@@ -0,0 +1,153 @@
+package no.paneon.api;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jgrapht.Graph;
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import no.paneon.api.benchmark.SyntheticSpec;
+import no.paneon.api.graph.CoreAPIGraph;
+import no.paneon.api.graph.Edge;
+import no.paneon.api.graph.Node;
+import no.paneon.api.graph.complexity.GraphComplexity;
+import no.paneon.api.logging.MethodMetrics;
+import no.paneon.api.model.APIModel;
+
+public class ScalingTest  {
+
+    static final Logger LOG = LogManager.getLogger(ScalingTest.class);
+
+    static final int[] SIZES = { 150, 300, 600 };
+    static final int RUNS = 3;
+
+    /*
+     * Budgets per doubling of the schema count, linear growth is 2 and quadratic 4.
+     * Times below the floor are rounded up to it, to keep timer noise on the small sizes out of the ratio.
+     */
+    static final double TIME_BUDGET = 3.0;
+    static final double ALLOCATION_BUDGET = 3.0;
+    static final long TIME_FLOOR_NANOS = 100_000_000L;
+
+    static final long MAX_NANOS = 20_000_000_000L;
+
+    /*
+     * checkScaling measures wall time and allocation, only run when asked for: mvn test -Dapicore.scalingTests=true
+     */
+    static final boolean SCALING_TESTS = Boolean.getBoolean("apicore.scalingTests");
+    static final long MAX_ALLOCATED_BYTES = 2L*1024*1024*1024;
+
+	public ScalingTest() {
+	}
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @AfterClass
+    public static void runOnceAfterClass() {
+        APIModel.clean();
+    }
+
+    @Test
+    public void checkGeneratedSpecs() throws IOException {
+    	SyntheticSpec oas2 = new SyntheticSpec(120).inheritanceDepth(3).discriminators(2).cycleDensity(0.2);
+    	SyntheticSpec oas3 = new SyntheticSpec(120).inheritanceDepth(3).discriminators(2).cycleDensity(0.2).openAPI3();
+    	SyntheticSpec split = new SyntheticSpec(120).externalFiles(10);
+
+    	Set<String> expected = getNodeNames(oas2.writeTo(folder.newFolder()));
+
+    	assert(expected.size()==120 + 5*2);
+    	assert(getNodeNames(oas3.writeTo(folder.newFolder())).equals(expected));
+
+    	File dir = folder.newFolder();
+    	Set<String> external = getNodeNames(split.writeTo(dir));
+    	assert(new File(dir, SyntheticSpec.schemaName(40) + ".json").exists());
+    	assert(external.equals(getNodeNames(new SyntheticSpec(120).writeTo(folder.newFolder()))));
+    }
+
+    @Test
+    public void checkScaling() throws IOException {
+    	Assume.assumeTrue(SCALING_TESTS);
+
+    	measure(SIZES[0]);
+
+    	long[] times = new long[SIZES.length];
+    	long[] allocated = new long[SIZES.length];
+    	for(int i=0; i<SIZES.length; i++) {
+    		long[] res = measure(SIZES[i]);
+    		times[i] = res[0];
+    		allocated[i] = res[1];
+    		LOG.debug("checkScaling: schemas={} time={} ms allocated={} KB", SIZES[i], times[i]/1000000, allocated[i]/1024);
+    	}
+
+    	for(int i=1; i<SIZES.length; i++) {
+    		double time = (double) Math.max(times[i], TIME_FLOOR_NANOS) / Math.max(times[i-1], TIME_FLOOR_NANOS);
+    		double allocation = (double) allocated[i] / allocated[i-1];
+
+    		assert(time<=TIME_BUDGET);
+    		assert(allocated[i-1]<=0 || allocation<=ALLOCATION_BUDGET);
+    	}
+
+    	assert(times[SIZES.length-1]<=MAX_NANOS);
+    	assert(allocated[SIZES.length-1]<=MAX_ALLOCATED_BYTES);
+    }
+
+    /*
+     * Best of RUNS of loading the specification, building the graph and the complexity of each resource:
+     * wall time in nanoseconds and bytes allocated by the thread (-1 if not available)
+     */
+    private long[] measure(int schemas) throws IOException {
+    	String file = new SyntheticSpec(schemas)
+    					.inheritanceDepth(3)
+    					.discriminators(2)
+    					.cycleDensity(0.1)
+    					.externalFiles(schemas/20)
+    					.writeTo(folder.newFolder());
+
+    	long time = Long.MAX_VALUE;
+    	long allocated = Long.MAX_VALUE;
+    	for(int run=0; run<RUNS; run++) {
+    		long bytes = MethodMetrics.getAllocatedBytes();
+    		long start = System.nanoTime();
+
+    		APIModel.clean();
+    		APIModel.setSwaggerSource(file);
+    		APIModel.loadAPI(file);
+
+    		List<String> resources = APIModel.getCoreResources();
+    		CoreAPIGraph core = new CoreAPIGraph(resources);
+    		for(String resource : resources) {
+    			Node node = core.getNode(resource);
+    			Graph<Node,Edge> graph = CoreAPIGraph.getSubGraphWithInheritance(resources, core.getCompleteGraph(), node, node);
+    			new GraphComplexity(graph, node).computeGraphComplexity();
+    		}
+
+    		time = Math.min(time, System.nanoTime() - start);
+    		allocated = bytes>=0 ? Math.min(allocated, MethodMetrics.getAllocatedBytes() - bytes) : -1;
+    	}
+
+    	APIModel.clean();
+
+    	return new long[] { time, allocated };
+    }
+
+    private Set<String> getNodeNames(String file) {
+    	APIModel.clean();
+    	APIModel.setSwaggerSource(file);
+    	APIModel.loadAPI(file);
+
+    	CoreAPIGraph core = new CoreAPIGraph(APIModel.getCoreResources());
+    	Set<String> res = core.getCompleteGraph().vertexSet().stream().map(Node::getName).collect(Collectors.toCollection(TreeSet::new));
+
+    	APIModel.clean();
+    	return res;
+    }
+
+}
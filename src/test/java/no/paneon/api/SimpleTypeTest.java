@@ -2,11 +2,15 @@ package no.paneon.api;
 
 import java.util.List;
 
+import org.json.JSONArray;
+import org.json.JSONObject;
 import org.junit.*;
 import org.junit.rules.TemporaryFolder;
 
 import no.paneon.api.model.APIModel;
+import no.paneon.api.utils.Config;
 import no.paneon.api.utils.Out;
+import no.paneon.api.utils.Utils;
 
 public class SimpleTypeTest  {
 
@@ -48,5 +52,26 @@ public class SimpleTypeTest  {
 
     }
 
+    @Test
+    public void checkConfigurationChange() {
+    	List<String> simpleTypes = Config.getSimpleTypes();
+    	
+    	assert(!Utils.isSimpleType("Quote"));
+    	
+    	try {
+    		List<String> extended = Config.getSimpleTypes();
+    		extended.add("Quote");
+    		Config.addConfiguration(new JSONObject().put("simpleTypes", new JSONArray(extended)));
+    		
+    		assert(Utils.isSimpleType("Quote"));
+    		assert(Config.getSimpleTypes().contains("Quote"));
+
+    	} finally {
+    		Config.addConfiguration(new JSONObject().put("simpleTypes", new JSONArray(simpleTypes)));
+    	}
+    	
+    	assert(!Utils.isSimpleType("Quote"));
+    }
+
 	
 }
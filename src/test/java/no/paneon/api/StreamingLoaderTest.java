@@ -0,0 +1,86 @@
+package no.paneon.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.io.FileUtils;
+import org.json.JSONObject;
+import org.junit.*;
+
+import no.paneon.api.utils.StreamingLoader;
+import no.paneon.api.utils.Utils;
+
+public class StreamingLoaderTest  {
+
+	public StreamingLoaderTest() {
+	}
+	
+    static List<String> files = Arrays.asList(
+    		"./src/test/resources/TMF620-ProductCatalog-v4.1.0.swagger.json",
+    		"./src/test/resources/Quote_Management_5.0.0_oas.yaml",
+    		"./src/test/resources/TMF622/ProductOrder.json",
+    		"./src/test/resources/ordering-api.swagger.json");
+    
+    @Test
+    public void checkSameAsStringConversion() throws Exception {
+    	for(String file : files) {
+    		JSONObject streamed = StreamingLoader.read(file, isYaml(file));
+    		JSONObject converted = readByString(file);
+    		
+        	assert(streamed.similar(converted));
+        	
+        	try(InputStream is = new FileInputStream(file)) {
+        		assert(Utils.readJSONOrYaml(is).similar(converted));
+        	}
+    	}
+    }
+
+    @Test
+    public void checkDuplicateKeysRejected() throws Exception {
+    	boolean failed = false;
+    	try(InputStream is = new ByteArrayInputStream("{ \"a\": 1, \"a\": 2 }".getBytes(StandardCharsets.UTF_8))) {
+    		StreamingLoader.readJSONOrYaml(is);
+    	} catch(IOException ex) {
+    		failed = true;
+    	}
+    	assert(failed);
+    }
+
+    @Test
+    public void checkStreamLeftOpen() throws Exception {
+    	AtomicBoolean closed = new AtomicBoolean();
+    	InputStream is = new FilterInputStream(new FileInputStream(files.get(0))) {
+    		@Override
+    		public void close() throws IOException {
+    			closed.set(true);
+    			super.close();
+    		}
+    	};
+    	
+    	try {
+    		assert(!Utils.readJSONOrYaml(is).isEmpty());
+    		assert(!closed.get());
+    	} finally {
+    		is.close();
+    	}
+    }
+
+    private static boolean isYaml(String file) {
+    	return file.endsWith(".yaml") || file.endsWith(".yml");
+    }
+    
+    private static JSONObject readByString(String file) throws Exception {
+		String content = FileUtils.readFileToString(new File(file), StandardCharsets.UTF_8);
+		if(isYaml(file)) content = Utils.convertYamlToJson(content);
+		return new JSONObject(content);
+    }
+	
+}
@@ -0,0 +1,243 @@
+package no.paneon.api.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/*
+ * Generated OAS2 or OAS3 specification for benchmarks and scaling tests.
+ *
+ * Schema0 .. Schema<n-1> each have a few simple properties and fanOut references to later schemas,
+ * every second one as an array. The first schemas are exposed as resources, with a list and a get by id path.
+ * Optionally:
+ * - inheritanceDepth: the schemas form allOf chains of this depth
+ * - discriminators: each resource has this number of sub types, listed in its discriminator mapping
+ * - cycleDensity: this fraction of the schemas has a reference back to the schema referencing it
+ * - externalFiles: this number of the leaf schemas (without references) are written to their own file,
+ *   with a stub { $ref: Schema<i>.json } in the specification (as TMF622/ProductOrder.json), only used by writeTo().
+ *   The schemas in these files have no allOf and no parent back reference, as they only refer to their own file,
+ *   so a split specification has fewer inheritance and cycle edges than the same one without external files.
+ * The output is deterministic for the same settings.
+ */
+public class SyntheticSpec {
+
+	static final String MAIN = "synthetic.json";
+
+	private final int schemas;
+	private int fanOut = 3;
+	private int resources = 5;
+	private int inheritanceDepth = 0;
+	private int discriminators = 0;
+	private double cycleDensity = 0;
+	private int externalFiles = 0;
+	private boolean openAPI3 = false;
+
+	public SyntheticSpec(int schemas) {
+		this.schemas = schemas;
+	}
+
+	public SyntheticSpec fanOut(int value) {
+		this.fanOut = value;
+		return this;
+	}
+
+	public SyntheticSpec resources(int value) {
+		this.resources = value;
+		return this;
+	}
+
+	public SyntheticSpec inheritanceDepth(int value) {
+		this.inheritanceDepth = value;
+		return this;
+	}
+
+	public SyntheticSpec discriminators(int value) {
+		this.discriminators = value;
+		return this;
+	}
+
+	public SyntheticSpec cycleDensity(double value) {
+		this.cycleDensity = value;
+		return this;
+	}
+
+	public SyntheticSpec externalFiles(int value) {
+		this.externalFiles = value;
+		return this;
+	}
+
+	public SyntheticSpec openAPI3() {
+		this.openAPI3 = true;
+		return this;
+	}
+
+	public static String schemaName(int i) {
+		return "Schema" + i;
+	}
+
+	static String subTypeName(int resource, int k) {
+		return schemaName(resource) + "Sub" + k;
+	}
+
+	/*
+	 * The specification with all schemas included, i.e. without external files
+	 */
+	public JSONObject generate() {
+		return generate(false).get(MAIN);
+	}
+
+	/*
+	 * Write the specification and its external files to the directory, returns the path of the specification
+	 */
+	public String writeTo(File dir) throws IOException {
+		for(Map.Entry<String,JSONObject> entry : generate(externalFiles>0).entrySet()) {
+			Files.write(new File(dir, entry.getKey()).toPath(), entry.getValue().toString(2).getBytes(StandardCharsets.UTF_8));
+		}
+		return new File(dir, MAIN).getPath();
+	}
+
+	private Map<String,JSONObject> generate(boolean split) {
+		Map<String,JSONObject> files = new LinkedHashMap<>();
+		JSONObject main = new JSONObject();
+		files.put(MAIN, main);
+
+		int firstLeaf = Math.max(resources, fanOut>0 ? (schemas-1)/fanOut + 1 : 0);
+		int step = Math.max(1, (schemas-firstLeaf)/Math.max(1, externalFiles));
+		for(int i=0; i<schemas; i++) {
+			int position = i - firstLeaf;
+			if(split && position>=0 && position%step==0 && position/step<externalFiles) {
+				String file = schemaName(i) + ".json";
+				files.put(file, createSchema(i, true));
+				schemasOf(main).put(schemaName(i), new JSONObject().put("$ref", file));
+			} else {
+				schemasOf(main).put(schemaName(i), createSchema(i, false));
+			}
+		}
+
+		for(int r=0; r<Math.min(resources, schemas); r++) {
+			for(int k=0; k<discriminators; k++) {
+				JSONObject subType = new JSONObject()
+						.put("allOf", new JSONArray()
+								.put(ref(schemaName(r)))
+								.put(new JSONObject().put("type", "object").put("properties",
+										new JSONObject().put("sub" + k, new JSONObject().put("type", "string")))));
+				schemasOf(main).put(subTypeName(r, k), subType);
+			}
+		}
+
+		JSONObject paths = new JSONObject();
+		for(int i=0; i<Math.min(resources, schemas); i++) {
+			String resource = schemaName(i);
+			String path = "/" + resource.toLowerCase();
+
+			JSONObject list = new JSONObject().put("type", "array").put("items", ref(resource));
+			paths.put(path, new JSONObject().put("get", operation("list" + resource, list)));
+			paths.put(path + "/{id}", new JSONObject().put("get", operation("retrieve" + resource, ref(resource))));
+		}
+
+		if(openAPI3) {
+			main.put("openapi", "3.0.1");
+			main.put("servers", new JSONArray().put(new JSONObject().put("url", "/synthetic/v1")));
+		} else {
+			main.put("swagger", "2.0");
+			main.put("basePath", "/synthetic/v1");
+		}
+		main.put("info", new JSONObject().put("title", "Synthetic API").put("version", "1.0.0"));
+		main.put("paths", paths);
+
+		return files;
+	}
+
+	private JSONObject schemasOf(JSONObject file) {
+		if(!openAPI3) {
+			if(!file.has("definitions")) file.put("definitions", new JSONObject());
+			return file.getJSONObject("definitions");
+		}
+		if(!file.has("components")) file.put("components", new JSONObject().put("schemas", new JSONObject()));
+		return file.getJSONObject("components").getJSONObject("schemas");
+	}
+
+	/*
+	 * The schema, without allOf and parent back reference when written to its own file (leaf)
+	 */
+	private JSONObject createSchema(int i, boolean leaf) {
+		JSONObject properties = new JSONObject();
+		properties.put("id", new JSONObject().put("type", "string").put("description", "Identifier of " + schemaName(i)));
+		properties.put("href", new JSONObject().put("type", "string"));
+		properties.put("name", new JSONObject().put("type", "string"));
+
+		for(int k=0; k<fanOut; k++) {
+			int target = i*fanOut + k + 1;
+			if(target>=schemas) break;
+
+			JSONObject ref = ref(schemaName(target));
+			String property = "rel" + k;
+			if(k%2==1) {
+				properties.put(property, new JSONObject().put("type", "array").put("items", ref));
+			} else {
+				properties.put(property, ref);
+			}
+		}
+
+		int referencedBy = fanOut>0 ? (i-1)/fanOut : -1;
+		if(!leaf && i>0 && referencedBy>=0 && hasCycle(i)) {
+			properties.put("parent", ref(schemaName(referencedBy)));
+		}
+
+		JSONObject res = new JSONObject()
+				.put("type", "object")
+				.put("description", "Synthetic schema " + i)
+				.put("properties", properties)
+				.put("required", new JSONArray().put("id"));
+
+		if(discriminators>0 && i<resources) {
+			properties.put("@type", new JSONObject().put("type", "string"));
+			JSONObject mapping = new JSONObject().put(schemaName(i), pointer(schemaName(i)));
+			for(int k=0; k<discriminators; k++) mapping.put(subTypeName(i, k), pointer(subTypeName(i, k)));
+			res.put("discriminator", new JSONObject().put("propertyName", "@type").put("mapping", mapping));
+		}
+
+		int position = inheritanceDepth>0 ? i % (inheritanceDepth+1) : 0;
+		if(!leaf && position>0) {
+			res = new JSONObject().put("allOf", new JSONArray()
+					.put(ref(schemaName(i-1)))
+					.put(res));
+		}
+
+		return res;
+	}
+
+	/*
+	 * Deterministic choice of the schemas with a back reference
+	 */
+	private boolean hasCycle(int i) {
+		return cycleDensity>0 && Math.floorMod(i * 2654435761L, 1000) < cycleDensity*1000;
+	}
+
+	private String pointer(String schema) {
+		return (openAPI3 ? "#/components/schemas/" : "#/definitions/") + schema;
+	}
+
+	private JSONObject ref(String schema) {
+		return new JSONObject().put("$ref", pointer(schema));
+	}
+
+	private JSONObject operation(String operationId, JSONObject schema) {
+		JSONObject response = new JSONObject().put("description", "Success");
+		if(openAPI3) {
+			response.put("content", new JSONObject().put("application/json", new JSONObject().put("schema", schema)));
+		} else {
+			response.put("schema", schema);
+		}
+		return new JSONObject()
+				.put("operationId", operationId)
+				.put("responses", new JSONObject().put("200", response));
+	}
+
+}
@@ -0,0 +1,54 @@
+package no.paneon.api.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jgrapht.Graph;
+import org.junit.*;
+
+import no.paneon.api.graph.complexity.GraphAlgorithms;
+import no.paneon.api.model.APIModel;
+
+public class APIGraphTest  {
+
+	public APIGraphTest() {
+	}
+
+    static String file = "./src/test/resources/TMF620-ProductCatalog-v4.1.0.swagger.json";
+
+    @BeforeClass
+    public static void runOnceBeforeClass() {
+        APIModel.setSwaggerSource(file);
+        APIModel.loadAPI(file);
+    }
+
+    @AfterClass
+    public static void runOnceAfterClass() {
+        APIModel.clean();
+    }
+
+    @Test
+    public void checkCirclesOfGraphAtInit() {
+    	List<String> resources = APIModel.getCoreResources();
+    	CoreAPIGraph core = new CoreAPIGraph(resources);
+
+    	int checked = 0;
+    	for(String resource : resources) {
+    		Node node = core.getNode(resource);
+    		Graph<Node,Edge> graph = CoreAPIGraph.getSubGraphWithInheritance(resources, core.getCompleteGraph(), node, node);
+
+    		APIGraph apiGraph = new APIGraph(resources, resource, core, graph, resource, false);
+    		assert(apiGraph.circles==null);
+
+    		List<List<Node>> expected = GraphAlgorithms.cyclicAllCycles(apiGraph.graph, apiGraph.resourceNode);
+    		if(!expected.isEmpty()) checked++;
+
+    		apiGraph.graph.removeAllEdges(new ArrayList<>(apiGraph.graph.edgeSet()));
+
+    		assert(apiGraph.getCircles().equals(expected));
+    		assert(apiGraph.getCircles()==apiGraph.getCircles());
+    	}
+    	assert(checked>0);
+    }
+
+}
@@ -0,0 +1,177 @@
+package no.paneon.api.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.AsSubgraph;
+import org.json.JSONObject;
+import org.junit.*;
+
+import no.paneon.api.graph.complexity.ComplexityAdjustedAPIGraph;
+import no.paneon.api.model.APIModel;
+import no.paneon.api.utils.Config;
+
+public class CoreAPIGraphTest  {
+
+	public CoreAPIGraphTest() {
+	}
+
+    static String file = "./src/test/resources/TMF620-ProductCatalog-v4.1.0.swagger.json";
+
+    @BeforeClass
+    public static void runOnceBeforeClass() {
+        APIModel.setSwaggerSource(file);
+        APIModel.loadAPI(file);
+    }
+
+    @AfterClass
+    public static void runOnceAfterClass() {
+        APIModel.clean();
+    }
+
+    @Test
+    public void checkGraphSnapshot() {
+    	CoreAPIGraph core = new CoreAPIGraph(APIModel.getCoreResources());
+    	Graph<Node,Edge> graph = core.getCompleteGraph();
+
+    	GraphSnapshot snapshot = core.getSnapshot();
+    	assert(GraphSnapshot.lookup(graph)==snapshot);
+    	assert(snapshot.size()==graph.vertexSet().size());
+    	assert(snapshot.getEdgeCount()==graph.edgeSet().size());
+
+    	Graph<Node,Edge> copy = new AsSubgraph<>(graph);
+    	assert(GraphSnapshot.lookup(copy)==null);
+
+    	Node catalog = core.getNode("Catalog");
+    	assert(CoreAPIGraph.getNodesOfSubGraph(graph, catalog).equals(CoreAPIGraph.getNodesOfSubGraph(copy, catalog)));
+    	assert(CoreAPIGraph.getSubGraphNodes(graph, catalog).equals(CoreAPIGraph.getSubGraphNodes(copy, catalog)));
+    	assert(CoreAPIGraph.getReverseSubGraph(graph, catalog).equals(CoreAPIGraph.getReverseSubGraph(copy, catalog)));
+    	assert(CoreAPIGraph.getReachable(graph, catalog).equals(CoreAPIGraph.getReachable(copy, catalog)));
+    }
+
+    @Test
+    public void checkGraphSnapshotModified() {
+    	CoreAPIGraph core = new CoreAPIGraph(APIModel.getCoreResources());
+    	Graph<Node,Edge> graph = core.getCompleteGraph();
+    	Node catalog = core.getNode("Catalog");
+
+    	Edge edge = graph.outgoingEdgesOf(catalog).iterator().next();
+    	Node other = graph.vertexSet().stream()
+    					.filter(node -> !node.equals(catalog) && !CoreAPIGraph.getSubGraphNodes(graph, catalog).contains(node))
+    					.findFirst().get();
+
+    	graph.removeEdge(edge);
+    	graph.addEdge(catalog, other, new Edge(catalog, "modified", other, "0..1", false));
+
+    	assert(GraphSnapshot.lookup(graph)==null);
+    	assert(!core.getSnapshot().isCurrent());
+
+    	Graph<Node,Edge> copy = new AsSubgraph<>(graph);
+    	assert(CoreAPIGraph.getSubGraphNodes(graph, catalog).contains(other));
+    	assert(CoreAPIGraph.getSubGraphNodes(graph, catalog).equals(CoreAPIGraph.getSubGraphNodes(copy, catalog)));
+    	assert(CoreAPIGraph.getReachable(graph, catalog).equals(CoreAPIGraph.getReachable(copy, catalog)));
+    }
+
+    @Test
+    public void checkReachabilityIndex() {
+    	CoreAPIGraph core = new CoreAPIGraph(APIModel.getCoreResources());
+    	Graph<Node,Edge> graph = core.getCompleteGraph();
+    	Graph<Node,Edge> copy = new AsSubgraph<>(graph);
+
+    	ReachabilityIndex reachability = core.getSnapshot().getReachability();
+
+    	for(Node node : graph.vertexSet()) {
+    		int id = core.getSnapshot().indexOf(node);
+    		assert(reachability.getClosure(id).get(id));
+    		assert(core.getSnapshot().toNodes(reachability.getSuccessors(id)).equals(core.getSnapshot().toNodes(core.getSnapshot().getSuccessors(id, -1))));
+
+    		assert(CoreAPIGraph.getSubGraphNodes(graph, node).equals(CoreAPIGraph.getSubGraphNodes(copy, node)));
+    		assert(CoreAPIGraph.getReverseSubGraph(graph, node).equals(CoreAPIGraph.getReverseSubGraph(copy, node)));
+    		assert(CoreAPIGraph.getNodesOfSubGraph(graph, node).equals(CoreAPIGraph.getNodesOfSubGraph(copy, node)));
+    		assert(CoreAPIGraph.getReachable(graph, node).equals(CoreAPIGraph.getReachable(copy, node)));
+    	}
+    }
+
+    @Test
+    public void checkSubGraphsForResources() {
+    	List<String> resources = APIModel.getCoreResources();
+    	CoreAPIGraph core = new CoreAPIGraph(resources);
+
+    	ComplexityAdjustedAPIGraph single = new ComplexityAdjustedAPIGraph(core, false);
+    	single.generateSubGraphsForResource(resources, "Catalog");
+
+    	ComplexityAdjustedAPIGraph batch = new ComplexityAdjustedAPIGraph(core, false);
+    	try {
+    		Config.addConfiguration(new JSONObject().put("subGraphParallelism", 4));
+    		batch.generateSubGraphsForResources(resources, resources);
+    	} finally {
+    		Config.addConfiguration(new JSONObject().put("subGraphParallelism", 0));
+    	}
+
+    	for(String resource : resources) {
+    		assert(!batch.getSubGraphLabels(resource).isEmpty());
+    	}
+
+    	assert(batch.getSubGraphLabels("Catalog").equals(single.getSubGraphLabels("Catalog")));
+    	for(String pivot : single.getSubGraphLabels("Catalog")) {
+    		Graph<Node,Edge> expected = single.getSubGraph("Catalog", pivot).get();
+    		Graph<Node,Edge> actual = batch.getSubGraph("Catalog", pivot).get();
+    		assert(actual.vertexSet().equals(expected.vertexSet()));
+    		assert(actual.edgeSet().equals(expected.edgeSet()));
+    	}
+    }
+
+    @Test
+    public void checkSubGraphView() {
+    	CoreAPIGraph core = new CoreAPIGraph(APIModel.getCoreResources());
+    	Graph<Node,Edge> complete = core.getCompleteGraph();
+    	Node catalog = core.getNode("Catalog");
+
+    	Set<Node> nodes = CoreAPIGraph.getNodesOfSubGraph(complete, catalog);
+    	Graph<Node,Edge> view = SubGraphView.of(complete, nodes);
+    	Graph<Node,Edge> expected = new AsSubgraph<>(complete, nodes);
+
+    	assert(view instanceof SubGraphView);
+    	assert(new ArrayList<>(view.vertexSet()).equals(new ArrayList<>(expected.vertexSet())));
+    	assert(new ArrayList<>(view.edgeSet()).equals(new ArrayList<>(expected.edgeSet())));
+    	for(Node node : expected.vertexSet()) {
+    		assert(view.edgesOf(node).equals(expected.edgesOf(node)));
+    		assert(view.outgoingEdgesOf(node).equals(expected.outgoingEdgesOf(node)));
+    	}
+
+    	Graph<Node,Edge> copy = SubGraphView.of(view);
+    	Node removed = view.outgoingEdgesOf(catalog).stream().map(view::getEdgeTarget).findFirst().get();
+    	copy.removeVertex(removed);
+
+    	assert(!copy.containsVertex(removed) && view.containsVertex(removed));
+    	assert(copy.edgeSet().size()<view.edgeSet().size());
+    	assert(copy.edgeSet().stream().noneMatch(e -> copy.getEdgeTarget(e).equals(removed)));
+    	assert(view.vertexSet().equals(expected.vertexSet()));
+    }
+
+    @Test
+    public void checkMemoizedNodesOfSubGraph() {
+    	CoreAPIGraph core = new CoreAPIGraph(APIModel.getCoreResources());
+    	Node catalog = core.getNode("Catalog");
+    	Graph<Node,Edge> view = SubGraphView.of(core.getCompleteGraph());
+
+    	Set<Node> first = CoreAPIGraph.getNodesOfSubGraph(view, catalog);
+    	Set<Node> second = CoreAPIGraph.getNodesOfSubGraph(view, catalog);
+
+    	assert(first!=second && first.equals(second));
+    	assert(first.equals(CoreAPIGraph.getNodesOfSubGraph(core.getCompleteGraph(), catalog)));
+
+    	first.clear();
+    	assert(CoreAPIGraph.getNodesOfSubGraph(view, catalog).equals(second));
+
+    	Node removed = CoreAPIGraph.getOutboundNeighbours(view, catalog).iterator().next();
+    	view.removeVertex(removed);
+
+    	Set<Node> changed = CoreAPIGraph.getNodesOfSubGraph(view, catalog);
+    	assert(!changed.contains(removed));
+    	assert(changed.equals(CoreAPIGraph.getNodesOfSubGraph(new AsSubgraph<>(view), catalog)));
+    }
+
+}
@@ -0,0 +1,72 @@
+package no.paneon.api.graph.complexity;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.jgrapht.Graph;
+import org.json.JSONObject;
+import org.junit.*;
+
+import no.paneon.api.graph.CoreAPIGraph;
+import no.paneon.api.graph.Edge;
+import no.paneon.api.graph.Node;
+import no.paneon.api.model.APIModel;
+
+/*
+ * The complexity of each core resource, and of the nodes contributing to it, as in src/test/resources/complexity
+ */
+public class GraphComplexityTest  {
+
+	public GraphComplexityTest() {
+	}
+
+    @After
+    public void runAfterTestMethod() {
+        APIModel.clean();
+    }
+
+    @Test
+    public void checkComplexityTMF620() throws IOException {
+    	checkComplexity("./src/test/resources/TMF620-ProductCatalog-v4.1.0.swagger.json", "./src/test/resources/complexity/TMF620-ProductCatalog-v4.1.0.json");
+    }
+
+    @Test
+    public void checkComplexityQuote() throws IOException {
+    	checkComplexity("./src/test/resources/Quote_Management_5.0.0_oas.yaml", "./src/test/resources/complexity/Quote_Management_5.0.0_oas.json");
+    }
+
+    private void checkComplexity(String file, String expectedFile) throws IOException {
+    	JSONObject expected = new JSONObject(new String(Files.readAllBytes(Paths.get(expectedFile)), StandardCharsets.UTF_8));
+
+    	APIModel.clean();
+    	APIModel.setSwaggerSource(file);
+    	APIModel.loadAPI(file);
+
+    	List<String> resources = APIModel.getCoreResources();
+    	CoreAPIGraph core = new CoreAPIGraph(resources);
+
+    	assert(expected.keySet().equals(new HashSet<>(resources)));
+
+    	for(String resource : resources) {
+    		Node node = core.getNode(resource);
+    		Graph<Node,Edge> graph = CoreAPIGraph.getSubGraphWithInheritance(resources, core.getCompleteGraph(), node, node);
+
+    		GraphComplexity complexity = new GraphComplexity(graph, node);
+    		complexity.computeGraphComplexity();
+
+    		Map<String,Object> nodes = new HashMap<>();
+    		complexity.getNodeComplexity().forEach((n, value) -> nodes.put(n.getName(), value));
+
+    		JSONObject expectedResource = expected.getJSONObject(resource);
+    		assert(nodes.equals(expectedResource.getJSONObject("nodes").toMap()));
+    		assert(complexity.getComplexity()==expectedResource.getInt("complexity"));
+    	}
+    }
+
+}
@@ -0,0 +1,39 @@
+package no.paneon.api.logging;
+
+import org.json.JSONObject;
+import org.junit.*;
+
+public class MethodMetricsTest  {
+
+	public MethodMetricsTest() {
+	}
+
+    @After
+    public void runAfterTestMethod() {
+    	MethodMetrics.reset();
+    }
+
+    @Test
+    public void checkMethodMetrics() {
+    	MethodMetrics.reset();
+    	MethodMetrics.record("APIModel.getDefinition", 1500, 64);
+    	MethodMetrics.record("APIModel.getDefinition", 900, 0);
+    	MethodMetrics.record("CoreAPIGraph.getNode", 100, -1);
+
+    	assert(MethodMetrics.getCount("APIModel.getDefinition")==2);
+
+    	JSONObject first = MethodMetrics.toJSON().getJSONObject(0);
+    	assert(first.getString("method").equals("APIModel.getDefinition"));
+    	assert(first.getLong("totalNanos")==2400);
+    	assert(first.getLong("p50Nanos")==1023 && first.getLong("p99Nanos")==2047);
+    	assert(first.getLong("allocatedBytes")==64);
+
+    	String prometheus = MethodMetrics.toPrometheus();
+    	assert(prometheus.contains("apicore_method_calls_total{method=\"CoreAPIGraph.getNode\"} 1"));
+    	assert(prometheus.contains("apicore_method_duration_seconds_bucket{method=\"APIModel.getDefinition\",le=\"+Inf\"} 2"));
+
+    	MethodMetrics.reset();
+    	assert(MethodMetrics.toJSON().isEmpty());
+    }
+
+}
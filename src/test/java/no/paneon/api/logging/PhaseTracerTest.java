@@ -0,0 +1,53 @@
+package no.paneon.api.logging;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.*;
+
+import no.paneon.api.graph.CoreAPIGraph;
+import no.paneon.api.model.APIModel;
+
+public class PhaseTracerTest  {
+
+	public PhaseTracerTest() {
+	}
+
+    static String file = "./src/test/resources/TMF620-ProductCatalog-v4.1.0.swagger.json";
+
+    @BeforeClass
+    public static void runOnceBeforeClass() {
+        APIModel.setSwaggerSource(file);
+        APIModel.loadAPI(file);
+    }
+
+    @AfterClass
+    public static void runOnceAfterClass() {
+        APIModel.clean();
+    }
+
+    @Test
+    public void checkPhaseTracer() {
+    	PhaseTracer.reset();
+    	PhaseTracer.setEnabled(true);
+    	try {
+    		CoreAPIGraph core = new CoreAPIGraph(APIModel.getCoreResources());
+
+    		JSONArray phases = PhaseTracer.getSummary().getJSONArray("phases");
+    		JSONObject graph = phases.getJSONObject(0);
+    		assert(graph.getString("phase").equals("CoreAPIGraph"));
+    		assert(graph.getInt("nodes")==core.getCompleteGraph().vertexSet().size());
+    		assert(graph.getLong("wallNanos")>0);
+
+    		JSONObject generate = phases.getJSONObject(1);
+    		assert(generate.getString("phase").equals("CoreAPIGraph/generateGraph"));
+    		assert(generate.getLong("wallNanos")<=graph.getLong("wallNanos"));
+    	} finally {
+    		PhaseTracer.setEnabled(false);
+    		PhaseTracer.reset();
+    	}
+
+    	PhaseTracer.run("disabled", () -> {});
+    	assert(PhaseTracer.getSummary().getJSONArray("phases").isEmpty());
+    }
+
+}